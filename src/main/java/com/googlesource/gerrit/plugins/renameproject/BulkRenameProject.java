@@ -0,0 +1,448 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.googlesource.gerrit.plugins.renameproject.RenameProject.CACHE_STEP;
+import static com.googlesource.gerrit.plugins.renameproject.RenameProject.CANCELLATION_MSG;
+import static com.googlesource.gerrit.plugins.renameproject.RenameProject.DATABASE_STEP;
+import static com.googlesource.gerrit.plugins.renameproject.RenameProject.FILESYSTEM_STEP;
+import static com.googlesource.gerrit.plugins.renameproject.RenameProject.INDEX_STEP;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.BadRequestException;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestModifyView;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.IdentifiedUser;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.gerrit.server.config.GerritIsReplica;
+import com.google.gerrit.server.extensions.events.PluginEvent;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.BulkRenameProject.Input;
+import com.googlesource.gerrit.plugins.renameproject.RenameProject.Step;
+import com.googlesource.gerrit.plugins.renameproject.cache.CacheRenameHandler;
+import com.googlesource.gerrit.plugins.renameproject.database.DatabaseRenameHandler;
+import com.googlesource.gerrit.plugins.renameproject.database.IndexUpdateHandler;
+import com.googlesource.gerrit.plugins.renameproject.monitor.NoopMonitor;
+import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renames several projects in one operation.
+ *
+ * <p>All renames are validated before any of them starts. The watch entries of all the projects
+ * are then moved with one update per watching account, their changes are reindexed through a
+ * single pool of threads and each replica receives a single request.
+ */
+@Singleton
+public class BulkRenameProject implements RestModifyView<ConfigResource, Input> {
+  static final String BULK_RENAME_ACTION = "bulk-rename";
+
+  public static class Input {
+    /** New names of the projects to rename, by old name. */
+    Map<String, String> renames;
+
+    boolean continueWithRename;
+  }
+
+  /** Renames validated by {@link #prepare}, ready to be run by {@link #execute}. */
+  static class Plan {
+    private final ImmutableList<RenameOperation> ops;
+
+    Plan(List<RenameOperation> ops) {
+      this.ops = ImmutableList.copyOf(ops);
+    }
+
+    ImmutableList<RenameOperation> getOperations() {
+      return ops;
+    }
+
+    int getChangeCount() {
+      return ops.stream().mapToInt(op -> op.getChangeIds().size()).sum();
+    }
+
+    ImmutableMap<Project.NameKey, Project.NameKey> getNewProjectKeys() {
+      return ops.stream()
+          .collect(toImmutableMap(op -> op.getOldProjectKey(), op -> op.getNewProjectKey()));
+    }
+
+    ImmutableMap<Project.NameKey, Set<Change.Id>> getChangeIdsByNewProject() {
+      return ops.stream()
+          .collect(toImmutableMap(op -> op.getNewProjectKey(), op -> op.getChangeIds()));
+    }
+
+    Project.NameKey[] getProjectKeys() {
+      return ops.stream()
+          .flatMap(op -> ImmutableList.of(op.getOldProjectKey(), op.getNewProjectKey()).stream())
+          .toArray(Project.NameKey[]::new);
+    }
+  }
+
+  private static final Logger log = LoggerFactory.getLogger(BulkRenameProject.class);
+
+  private final RenameProject renameProject;
+  private final ProjectCache projectCache;
+  private final DatabaseRenameHandler dbHandler;
+  private final IndexUpdateHandler indexHandler;
+  private final CacheRenameHandler cacheHandler;
+  private final LockUnlockProject lockUnlockProject;
+  private final RevertRenameProject revertRenameProject;
+  private final RenameLeaseManager leaseManager;
+  private final RenameLocks renameLocks;
+  private final RenameOperations operations;
+  private final RenameAdmission admission;
+  private final RenameLog renameLog;
+  private final PluginEvent pluginEvent;
+  private final Provider<CurrentUser> userProvider;
+  private final String pluginName;
+  private final boolean isReplica;
+  private final Configuration cfg;
+
+  @Inject
+  BulkRenameProject(
+      RenameProject renameProject,
+      ProjectCache projectCache,
+      DatabaseRenameHandler dbHandler,
+      IndexUpdateHandler indexHandler,
+      CacheRenameHandler cacheHandler,
+      LockUnlockProject lockUnlockProject,
+      RevertRenameProject revertRenameProject,
+      RenameLeaseManager leaseManager,
+      RenameLocks renameLocks,
+      RenameOperations operations,
+      RenameAdmission admission,
+      RenameLog renameLog,
+      PluginEvent pluginEvent,
+      Provider<CurrentUser> userProvider,
+      @PluginName String pluginName,
+      @GerritIsReplica Boolean isReplica,
+      Configuration cfg) {
+    this.renameProject = renameProject;
+    this.projectCache = projectCache;
+    this.dbHandler = dbHandler;
+    this.indexHandler = indexHandler;
+    this.cacheHandler = cacheHandler;
+    this.lockUnlockProject = lockUnlockProject;
+    this.revertRenameProject = revertRenameProject;
+    this.leaseManager = leaseManager;
+    this.renameLocks = renameLocks;
+    this.operations = operations;
+    this.admission = admission;
+    this.renameLog = renameLog;
+    this.pluginEvent = pluginEvent;
+    this.userProvider = userProvider;
+    this.pluginName = pluginName;
+    this.isReplica = isReplica;
+    this.cfg = cfg;
+  }
+
+  @Override
+  public Response<?> apply(ConfigResource resource, Input input)
+      throws IOException,
+          AuthException,
+          BadRequestException,
+          ResourceConflictException,
+          InterruptedException,
+          ConfigInvalidException,
+          RenameRevertException {
+    if (input == null || input.renames == null || input.renames.isEmpty()) {
+      throw new BadRequestException("No project to rename");
+    }
+    Map<Project.NameKey, String> renames = new LinkedHashMap<>();
+    input.renames.forEach((oldName, newName) -> renames.put(Project.nameKey(oldName), newName));
+    ProgressMonitor progressMonitor = NoopMonitor.INSTANCE;
+    Plan plan = prepare(renames, progressMonitor);
+    if (execute(
+        plan,
+        !renameProject.exceedsWarningLimit(plan.getChangeCount()) || input.continueWithRename,
+        progressMonitor)) {
+      return Response.ok("");
+    }
+    return Response.none();
+  }
+
+  /**
+   * Checks that all the projects can be renamed and retrieves their changes.
+   *
+   * @throws ResourceConflictException listing every rename that cannot be done
+   */
+  Plan prepare(Map<Project.NameKey, String> renames, ProgressMonitor pm)
+      throws BadRequestException, ResourceConflictException, IOException {
+    pm.beginTask(String.format("Checking preconditions of %d rename(s)", renames.size()));
+    assertDistinctNames(renames);
+    CurrentUser user = userProvider.get();
+    List<String> problems = new ArrayList<>();
+    List<RenameOperation> ops = new ArrayList<>(renames.size());
+    for (Map.Entry<Project.NameKey, String> rename : renames.entrySet()) {
+      Project.NameKey oldProjectKey = rename.getKey();
+      RenameProject.Input input = new RenameProject.Input();
+      input.name = rename.getValue();
+      Optional<ProjectState> state = projectCache.get(oldProjectKey);
+      if (!state.isPresent()) {
+        problems.add(String.format("%s: project not found", oldProjectKey.get()));
+        continue;
+      }
+      ProjectResource rsrc = new ProjectResource(state.get(), user);
+      try {
+        renameProject.assertCanRename(rsrc, input, NoopMonitor.INSTANCE);
+        Set<Change.Id> changeIds = ImmutableSet.of();
+        if (!isReplica) {
+          changeIds = dbHandler.getChangeIds(oldProjectKey);
+          renameProject.assertChangeLimit(rsrc, changeIds);
+        }
+        ops.add(new RenameOperation(oldProjectKey, input, changeIds));
+      } catch (ResourceConflictException | BadRequestException | AuthException e) {
+        problems.add(String.format("%s: %s", oldProjectKey.get(), e.getMessage()));
+      }
+    }
+    if (!problems.isEmpty()) {
+      throw new ResourceConflictException(
+          "Cannot rename projects:\n" + Joiner.on('\n').join(problems));
+    }
+    log.debug("Bulk rename preconditions check successful for {} project(s).", ops.size());
+    return new Plan(ops);
+  }
+
+  private static void assertDistinctNames(Map<Project.NameKey, String> renames)
+      throws BadRequestException {
+    Set<String> oldNames =
+        renames.keySet().stream().map(Project.NameKey::get).collect(Collectors.toSet());
+    Map<String, Integer> newNames = new HashMap<>();
+    renames.values().forEach(name -> newNames.merge(name, 1, Integer::sum));
+    Set<String> problems = new HashSet<>();
+    for (Map.Entry<String, Integer> newName : newNames.entrySet()) {
+      if (newName.getKey() == null) {
+        continue;
+      }
+      if (newName.getValue() > 1) {
+        problems.add(String.format("%s is the new name of several projects", newName.getKey()));
+      }
+      if (oldNames.contains(newName.getKey())) {
+        problems.add(
+            String.format("%s is both renamed and the new name of a project", newName.getKey()));
+      }
+    }
+    if (!problems.isEmpty()) {
+      throw new BadRequestException(Joiner.on('\n').join(problems));
+    }
+  }
+
+  /** Runs the renames of the plan, returning false if cancelled by the user. */
+  boolean execute(Plan plan, boolean continueRename, ProgressMonitor pm)
+      throws InterruptedException,
+          ConfigInvalidException,
+          IOException,
+          RenameRevertException,
+          ResourceConflictException {
+    if (isReplica) {
+      RenameLocks.Held locks = renameLocks.acquire(plan.getProjectKeys());
+      try {
+        for (RenameOperation op : plan.getOperations()) {
+          renameProject.doRenameReplica(op);
+        }
+      } finally {
+        locks.release();
+      }
+      return true;
+    }
+    if (!continueRename) {
+      log.debug(CANCELLATION_MSG);
+      return false;
+    }
+    admission.assertNotBusy();
+    renameProject.chargeQuota(userProvider.get(), plan.getOperations().size());
+    doRename(plan, pm);
+    return true;
+  }
+
+  private void doRename(Plan plan, ProgressMonitor pm)
+      throws InterruptedException,
+          ConfigInvalidException,
+          IOException,
+          RenameRevertException,
+          ResourceConflictException {
+    List<RenameOperation> ops = plan.getOperations();
+    Map<RenameOperation, RenameLeaseManager.Lease> leases = new LinkedHashMap<>();
+    Exception ex = null;
+    ops.forEach(operations::register);
+    RenameLocks.Held locks = null;
+    try {
+      locks = renameLocks.acquire(plan.getProjectKeys());
+      try {
+        for (RenameOperation op : ops) {
+          leases.put(op, leaseManager.acquire(op));
+          lockUnlockProject.lock(op.getOldProjectKey());
+        }
+        try (StepScheduler steps =
+            new StepScheduler(
+                renameProject.stepExecutor(),
+                () -> ops.stream().anyMatch(RenameOperation::isCancelled),
+                name -> cfg.getStepTimeout(stepOf(name)))) {
+          String[] cacheSteps = new String[ops.size()];
+          String previousFsStep = null;
+          for (int i = 0; i < ops.size(); i++) {
+            RenameOperation op = ops.get(i);
+            // one step per project, so that the step timeouts apply to each repository; they are
+            // renamed one at a time as they report their progress to the same monitor
+            String fsStep = stepName(FILESYSTEM_STEP, op);
+            steps.add(
+                fsStep,
+                () -> {
+                  renameProject.fsRenameStep(op, pm);
+                  renameProject.warmUpRepository(op.getNewProjectKey(), pm);
+                },
+                previousFsStep == null ? new String[0] : new String[] {previousFsStep});
+            cacheSteps[i] = stepName(CACHE_STEP, op);
+            steps.add(cacheSteps[i], () -> renameProject.cacheRenameStep(op), fsStep);
+            previousFsStep = fsStep;
+          }
+          // the project caches were all updated with the repositories, so the watches and the
+          // index do not depend on each other
+          steps
+              .add(
+                  DATABASE_STEP,
+                  () -> dbRenameStep(plan, cfg.parallelSteps() ? NoopMonitor.INSTANCE : pm),
+                  cacheSteps)
+              .add(INDEX_STEP, () -> indexRenameStep(plan, pm), cacheSteps)
+              .run();
+          // the peers, the listeners and the replicas cannot be reverted, so the renames cannot
+          // be cancelled from now on
+          boolean cancelled = false;
+          for (RenameOperation op : ops) {
+            cancelled |= !op.disallowCancellation();
+          }
+          if (cancelled) {
+            throw new ResourceConflictException("The rename was cancelled");
+          }
+          for (RenameOperation op : ops) {
+            leaseManager.committed(op);
+          }
+          for (RenameOperation op : ops) {
+            cacheHandler.updateChangeIdProjects(op.getChangeIds(), op.getNewProjectKey());
+            renameProject.broadcastCacheInvalidation(
+                op.getOldProjectKey(), op.getNewProjectKey(), op.getChangeIds());
+            pluginEvent.fire(
+                pluginName,
+                pluginName,
+                op.getOldProjectKey().get() + ":" + op.getNewProjectKey().get());
+          }
+          renameProject.replicateWithTimeout(
+              steps,
+              () -> renameProject.replicateBulkRename(ops, pm),
+              String.format("the rename of %d project(s)", ops.size()));
+        }
+        for (RenameOperation op : ops) {
+          lockUnlockProject.unlock(op.getNewProjectKey());
+          leaseManager.release(leases.get(op));
+        }
+      } catch (Exception e) {
+        log.error("Bulk renaming procedure failed. Exception caught: {}", e.toString());
+        Exception revertFailure = null;
+        for (RenameOperation op : Lists.reverse(new ArrayList<>(leases.keySet()))) {
+          RenameLeaseManager.Lease lease = leases.get(op);
+          try {
+            revertRenameProject.performRevert(
+                op.getStepsStarted(),
+                op.getChangeIds(),
+                op.getOldProjectKey(),
+                op.getNewProjectKey(),
+                pm);
+            leaseManager.release(lease);
+          } catch (Exception revertEx) {
+            log.error(
+                "Failed to revert renaming procedure for {}. Exception caught: {}",
+                op.getOldProjectKey().get(),
+                revertEx.toString());
+            // let the lease expire so that the rename is recovered later
+            leaseManager.abandon(lease);
+            if (revertFailure == null) {
+              revertFailure = revertEx;
+            }
+          }
+        }
+        if (revertFailure != null) {
+          ex = revertFailure;
+          throw new RenameRevertException(revertFailure, e);
+        }
+        ex = e;
+        throw e;
+      }
+    } finally {
+      if (locks != null) {
+        locks.release();
+      }
+      for (RenameOperation op : ops) {
+        operations.unregister(op);
+        renameLog.onRename(
+            (IdentifiedUser) userProvider.get(), op.getOldProjectKey(), op.getInput(), ex);
+      }
+    }
+  }
+
+  private static String stepName(String step, RenameOperation op) {
+    return step + " " + op.getOldProjectKey().get();
+  }
+
+  /** The step whose timeout applies to a step of a single project. */
+  private static String stepOf(String name) {
+    int space = name.indexOf(' ');
+    return space < 0 ? name : name.substring(0, space);
+  }
+
+  private void dbRenameStep(Plan plan, ProgressMonitor pm)
+      throws IOException, ConfigInvalidException, RenameRevertException {
+    for (RenameOperation op : plan.getOperations()) {
+      renameProject.logStartedStep(op, Step.DATABASE);
+    }
+    dbHandler.updateWatchEntriesWithRollback(plan.getNewProjectKeys(), pm);
+    plan.getOperations().forEach(op -> renameProject.logPerformedStep(op, Step.DATABASE));
+  }
+
+  private void indexRenameStep(Plan plan, ProgressMonitor pm)
+      throws IOException, InterruptedException {
+    for (RenameOperation op : plan.getOperations()) {
+      renameProject.logStartedStep(op, Step.INDEX);
+    }
+    indexHandler.updateIndex(plan.getChangeIdsByNewProject(), pm);
+    plan.getOperations().forEach(op -> renameProject.logPerformedStep(op, Step.INDEX));
+  }
+}
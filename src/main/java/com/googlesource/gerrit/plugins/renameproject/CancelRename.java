@@ -0,0 +1,60 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.googlesource.gerrit.plugins.renameproject.RenameProjectCapability.RENAME_PROJECT;
+
+import com.google.gerrit.extensions.annotations.RequiresCapability;
+import com.google.gerrit.extensions.common.Input;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestModifyView;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Aborts the running rename of a project, given by its old or new name. The step in progress is
+ * interrupted and the steps already performed are reverted.
+ */
+@Singleton
+@RequiresCapability(RENAME_PROJECT)
+public class CancelRename implements RestModifyView<ProjectResource, Input> {
+  private final RenameOperations operations;
+
+  @Inject
+  CancelRename(RenameOperations operations) {
+    this.operations = operations;
+  }
+
+  @Override
+  public Response<?> apply(ProjectResource resource, Input input)
+      throws ResourceNotFoundException, ResourceConflictException {
+    RenameOperation op =
+        operations
+            .byProject(resource.getNameKey())
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        String.format("No rename of %s in progress", resource.getName())));
+    if (!op.cancel()) {
+      throw new ResourceConflictException(
+          String.format(
+              "The rename of %s is being replicated and cannot be cancelled", resource.getName()));
+    }
+    return Response.none();
+  }
+}
@@ -0,0 +1,57 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.base.Strings;
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.BadRequestException;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestModifyView;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.CancelRenameJob.Input;
+
+/** Cancels a rename job of the caller, or any job for the users who may rename any project. */
+@Singleton
+public class CancelRenameJob implements RestModifyView<ConfigResource, Input> {
+  public static class Input {
+    String id;
+  }
+
+  private final RenameJobQueue jobQueue;
+  private final RenameJobAccess access;
+
+  @Inject
+  CancelRenameJob(RenameJobQueue jobQueue, RenameJobAccess access) {
+    this.jobQueue = jobQueue;
+    this.access = access;
+  }
+
+  @Override
+  public Response<RenameJob> apply(ConfigResource resource, Input input)
+      throws AuthException,
+          BadRequestException,
+          ResourceNotFoundException,
+          ResourceConflictException {
+    if (input == null || Strings.isNullOrEmpty(input.id)) {
+      throw new BadRequestException("Id of the rename job cannot be null or empty");
+    }
+    access.check(jobQueue.get(input.id));
+    return Response.ok(jobQueue.cancel(input.id));
+  }
+}
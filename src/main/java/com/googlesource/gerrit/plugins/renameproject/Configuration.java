@@ -16,18 +16,51 @@ package com.googlesource.gerrit.plugins.renameproject;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.server.config.GerritInstanceId;
 import com.google.gerrit.server.config.PluginConfig;
 import com.google.gerrit.server.config.PluginConfigFactory;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Singleton
 public class Configuration {
+  /** How the changeId -> project cache is updated after a rename. */
+  public enum ChangeIdCacheUpdate {
+    /** Drop the entries of the renamed changes. */
+    INVALIDATE,
+    /** Rewrite the cached entries of the renamed changes to the new project. */
+    REWRITE,
+    /** Rewrite the cached entries and load the entries of all open changes. */
+    PREFILL
+  }
+
+  /** How a project is protected against writes while being renamed. */
+  public enum LockMode {
+    /** Set the project state to READ_ONLY in refs/meta/config. */
+    CONFIG,
+    /**
+     * Reject ref updates, commits and submits through validation hooks. Change updates made
+     * through the REST API, such as votes and comments, are not rejected.
+     */
+    MEMORY
+  }
+
+  private static final Logger log = LoggerFactory.getLogger(Configuration.class);
   protected static final int NO_CHANGE_LIMIT = -1;
   private static final int DEFAULT_SSH_CONNECTION_TIMEOUT_MS = 2 * 60 * 1000; // 2 minutes
   private static final int DEFAULT_TIMEOUT_MS = 5000;
@@ -39,44 +72,229 @@ public class Configuration {
   private static final String HTTP_SECTION = "http";
   private static final String REPLICA_SECTION = "replicaInfo";
   private static final String CHANGE_LIMIT = "changeLimit";
+  private static final String STORAGE_TIER_KEY = "storageTier";
+  private static final String STORAGE_MOVE_RATE_KEY = "storageMoveRate";
+  private static final ImmutableList<String> STEPS =
+      ImmutableList.of(
+          RenameProject.FILESYSTEM_STEP,
+          RenameProject.CACHE_STEP,
+          RenameProject.DATABASE_STEP,
+          RenameProject.INDEX_STEP,
+          RenameProject.REPARENT_STEP,
+          RenameProject.REPLICATION_STEP);
 
-  private final int indexThreads;
-  private final int sshCommandTimeout;
-  private final int sshConnectionTimeout;
-  private final int renameReplicationRetries;
-  private final int connectionTimeout;
-  private final int socketTimeout;
+  private final PluginConfigFactory pluginConfigFactory;
+  private final String pluginName;
+  private volatile int indexThreads;
+  private volatile int maxIndexThreads;
+  private volatile boolean allowBackgroundReindex;
+  private volatile int maxPriority;
+  private volatile int sshCommandTimeout;
+  private volatile int sshConnectionTimeout;
+  private volatile int renameReplicationRetries;
+  private volatile int replicationThreads;
+  private volatile int connectionTimeout;
+  private volatile int socketTimeout;
   private final String renameRegex;
   private final String user;
   private final String password;
-  private final int changeLimit;
+  private volatile int changeLimit;
   private final Set<String> urls;
+  private final ImmutableMap<String, Path> storageTiers;
+  private volatile long storageMoveRate;
+  private final boolean warmUpRepository;
+  private final ChangeIdCacheUpdate changeIdCacheUpdate;
+  private final boolean warmUpProjectCache;
+  private final String nodeId;
+  private final Optional<Path> cacheBroadcastDirectory;
+  private final int cacheBroadcastPollInterval;
+  private final LockMode lockMode;
+  private final boolean persistLocks;
+  private final int leaseDuration;
+  private final int leaseRecoveryInterval;
+  private volatile int renameLockTimeout;
+  private volatile int jobQueueThreads;
+  private volatile int warningDuration;
+  private volatile boolean parallelSteps;
+  private volatile ImmutableMap<String, Integer> stepTimeouts;
+  private volatile Optional<MaintenanceWindow> maintenanceWindow;
+  private volatile boolean deferLargeRenames;
+  private volatile int maxActiveRenames;
+  private volatile int maxIndexQueueDepth;
+  private volatile int maxHeapUsage;
+  private volatile int maxCpuLoad;
+  private volatile int userRenameQuota;
+  private volatile int admissionRetryAfter;
 
   @Inject
-  public Configuration(PluginConfigFactory pluginConfigFactory, @PluginName String pluginName) {
+  public Configuration(
+      PluginConfigFactory pluginConfigFactory,
+      @PluginName String pluginName,
+      @Nullable @GerritInstanceId String instanceId) {
+    this.pluginConfigFactory = pluginConfigFactory;
+    this.pluginName = pluginName;
     PluginConfig cfg = pluginConfigFactory.getFromGerritConfig(pluginName);
-    indexThreads = cfg.getInt("indexThreads", 4);
-    sshCommandTimeout = cfg.getInt("sshCommandTimeout", 0);
-    sshConnectionTimeout = cfg.getInt("sshConnectionTimeout", DEFAULT_SSH_CONNECTION_TIMEOUT_MS);
     renameRegex = cfg.getString("renameRegex", ".+");
-    renameReplicationRetries = cfg.getInt("renameReplicationRetries", 3);
     user = Strings.nullToEmpty(cfg.getString(USER_KEY, null));
     password = Strings.nullToEmpty(cfg.getString(PASSWORD_KEY, null));
-    connectionTimeout = cfg.getInt(CONNECTION_TIMEOUT_KEY, DEFAULT_TIMEOUT_MS);
-    socketTimeout = cfg.getInt(SOCKET_TIMEOUT_KEY, DEFAULT_TIMEOUT_MS);
-    changeLimit = cfg.getInt(CHANGE_LIMIT, NO_CHANGE_LIMIT);
     urls =
         Arrays.stream(cfg.getStringList(URL_KEY))
             .filter(Objects::nonNull)
             .filter(s -> !s.isEmpty())
             .map(s -> CharMatcher.is('/').trimTrailingFrom(s))
             .collect(Collectors.toSet());
+    storageTiers = parseStorageTiers(cfg.getStringList(STORAGE_TIER_KEY));
+    warmUpRepository = cfg.getBoolean("warmUpRepository", true);
+    changeIdCacheUpdate = cfg.getEnum("changeIdCacheUpdate", ChangeIdCacheUpdate.INVALIDATE);
+    warmUpProjectCache = cfg.getBoolean("warmUpProjectCache", false);
+    nodeId =
+        cfg.getString(
+            "nodeId",
+            Strings.isNullOrEmpty(instanceId) ? UUID.randomUUID().toString() : instanceId);
+    cacheBroadcastDirectory =
+        Optional.ofNullable(Strings.emptyToNull(cfg.getString("cacheBroadcastDirectory")))
+            .map(Paths::get);
+    cacheBroadcastPollInterval = cfg.getInt("cacheBroadcastPollInterval", 5);
+    lockMode = cfg.getEnum("lockMode", LockMode.CONFIG);
+    persistLocks = cfg.getBoolean("persistLocks", true);
+    leaseDuration = cfg.getInt("leaseDuration", 300);
+    leaseRecoveryInterval = cfg.getInt("leaseRecoveryInterval", 60);
+    loadTuning(cfg);
+  }
+
+  /**
+   * Reads again the settings that tune the renames, the others requiring a restart of the plugin.
+   * Renames in progress apply the new values at their next safe point, like the next file copied,
+   * the next step or the next replica.
+   *
+   * @return the tuning settings in effect after the reload
+   */
+  public synchronized ImmutableMap<String, String> reload() {
+    ImmutableMap<String, String> before = getTuning();
+    loadTuning(pluginConfigFactory.getFromGerritConfig(pluginName, true));
+    ImmutableMap<String, String> after = getTuning();
+    after.forEach(
+        (key, value) -> {
+          if (!value.equals(before.get(key))) {
+            log.info("Reloaded {} = {}, was {}", key, value, before.get(key));
+          }
+        });
+    return after;
+  }
+
+  private void loadTuning(PluginConfig cfg) {
+    indexThreads = cfg.getInt("indexThreads", 4);
+    maxIndexThreads = cfg.getInt("maxIndexThreads", indexThreads);
+    allowBackgroundReindex = cfg.getBoolean("allowBackgroundReindex", false);
+    maxPriority = cfg.getInt("maxPriority", 0);
+    sshCommandTimeout = cfg.getInt("sshCommandTimeout", 0);
+    sshConnectionTimeout = cfg.getInt("sshConnectionTimeout", DEFAULT_SSH_CONNECTION_TIMEOUT_MS);
+    renameReplicationRetries = cfg.getInt("renameReplicationRetries", 3);
+    replicationThreads = cfg.getInt("replicationThreads", 4);
+    connectionTimeout = cfg.getInt(CONNECTION_TIMEOUT_KEY, DEFAULT_TIMEOUT_MS);
+    socketTimeout = cfg.getInt(SOCKET_TIMEOUT_KEY, DEFAULT_TIMEOUT_MS);
+    changeLimit = cfg.getInt(CHANGE_LIMIT, NO_CHANGE_LIMIT);
+    storageMoveRate = cfg.getLong(STORAGE_MOVE_RATE_KEY, 0);
+    renameLockTimeout = cfg.getInt("renameLockTimeout", 0);
+    jobQueueThreads = cfg.getInt("jobQueueThreads", 1);
+    warningDuration = cfg.getInt("warningDuration", 0);
+    parallelSteps = cfg.getBoolean("parallelSteps", true);
+    int stepTimeout = cfg.getInt("stepTimeout", 0);
+    ImmutableMap.Builder<String, Integer> timeouts = ImmutableMap.builder();
+    for (String step : STEPS) {
+      timeouts.put(step, cfg.getInt(step + "Timeout", stepTimeout));
+    }
+    stepTimeouts = timeouts.build();
+    maintenanceWindow = parseMaintenanceWindow(cfg.getString("maintenanceWindow"));
+    deferLargeRenames = cfg.getBoolean("deferLargeRenames", false);
+    maxActiveRenames = cfg.getInt("maxActiveRenames", 0);
+    maxIndexQueueDepth = cfg.getInt("maxIndexQueueDepth", 0);
+    maxHeapUsage = cfg.getInt("maxHeapUsage", 0);
+    maxCpuLoad = cfg.getInt("maxCpuLoad", 0);
+    userRenameQuota = cfg.getInt("userRenameQuota", 0);
+    admissionRetryAfter = cfg.getInt("admissionRetryAfter", 300);
+  }
+
+  /** Current values of the settings that can be reloaded, by key. */
+  public ImmutableMap<String, String> getTuning() {
+    ImmutableMap.Builder<String, Object> tuning =
+        ImmutableMap.<String, Object>builder()
+            .put("indexThreads", indexThreads)
+            .put("maxIndexThreads", maxIndexThreads)
+            .put("allowBackgroundReindex", allowBackgroundReindex)
+            .put("maxPriority", maxPriority)
+            .put("sshCommandTimeout", sshCommandTimeout)
+            .put("sshConnectionTimeout", sshConnectionTimeout)
+            .put("renameReplicationRetries", renameReplicationRetries)
+            .put("replicationThreads", replicationThreads)
+            .put(CONNECTION_TIMEOUT_KEY, connectionTimeout)
+            .put(SOCKET_TIMEOUT_KEY, socketTimeout)
+            .put(CHANGE_LIMIT, changeLimit)
+            .put(STORAGE_MOVE_RATE_KEY, storageMoveRate)
+            .put("renameLockTimeout", renameLockTimeout)
+            .put("jobQueueThreads", jobQueueThreads)
+            .put("warningDuration", warningDuration)
+            .put("parallelSteps", parallelSteps);
+    stepTimeouts.forEach((step, timeout) -> tuning.put(step + "Timeout", timeout));
+    return tuning
+        .put("maintenanceWindow", maintenanceWindow.map(MaintenanceWindow::toString).orElse(""))
+        .put("deferLargeRenames", deferLargeRenames)
+        .put("maxActiveRenames", maxActiveRenames)
+        .put("maxIndexQueueDepth", maxIndexQueueDepth)
+        .put("maxHeapUsage", maxHeapUsage)
+        .put("maxCpuLoad", maxCpuLoad)
+        .put("userRenameQuota", userRenameQuota)
+        .put("admissionRetryAfter", admissionRetryAfter)
+        .build()
+        .entrySet()
+        .stream()
+        .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> String.valueOf(e.getValue())));
+  }
+
+  private static Optional<MaintenanceWindow> parseMaintenanceWindow(String value) {
+    if (Strings.isNullOrEmpty(value)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(MaintenanceWindow.parse(value));
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring invalid maintenanceWindow '{}': {}", value, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private static ImmutableMap<String, Path> parseStorageTiers(String[] values) {
+    ImmutableMap.Builder<String, Path> tiers = ImmutableMap.builder();
+    for (String value : values) {
+      int sep = value.indexOf(':');
+      if (sep <= 0 || sep == value.length() - 1) {
+        log.warn("Ignoring invalid {} '{}', expected <name>:<basePath>", STORAGE_TIER_KEY, value);
+        continue;
+      }
+      tiers.put(value.substring(0, sep).trim(), Paths.get(value.substring(sep + 1).trim()));
+    }
+    return tiers.buildKeepingLast();
   }
 
   public int getIndexThreads() {
     return indexThreads;
   }
 
+  /** Maximum number of threads a rename may request to reindex its changes. */
+  public int getMaxIndexThreads() {
+    return Math.max(maxIndexThreads, 1);
+  }
+
+  /** Whether a rename may request its changes to be reindexed after the project is unlocked. */
+  public boolean allowBackgroundReindex() {
+    return allowBackgroundReindex;
+  }
+
+  /** Highest priority a queued rename may have, or 0 if priorities are not limited. */
+  public int getMaxPriority() {
+    return maxPriority;
+  }
+
   public Set<String> getUrls() {
     return urls;
   }
@@ -97,6 +315,11 @@ public class Configuration {
     return renameReplicationRetries;
   }
 
+  /** Maximum number of replicas a rename is replicated to at the same time. */
+  public int getReplicationThreads() {
+    return Math.max(replicationThreads, 1);
+  }
+
   public String getUser() {
     return user;
   }
@@ -116,4 +339,124 @@ public class Configuration {
   public int getChangeLimit() {
     return changeLimit;
   }
+
+  public Optional<Path> getStorageTier(String name) {
+    return Optional.ofNullable(storageTiers.get(name));
+  }
+
+  /** Maximum number of bytes per second copied when moving a repository to a storage tier. */
+  public long getStorageMoveRate() {
+    return storageMoveRate;
+  }
+
+  public boolean warmUpRepository() {
+    return warmUpRepository;
+  }
+
+  public ChangeIdCacheUpdate getChangeIdCacheUpdate() {
+    return changeIdCacheUpdate;
+  }
+
+  public boolean warmUpProjectCache() {
+    return warmUpProjectCache;
+  }
+
+  /** Identifier of this node among the primaries sharing cache invalidations. */
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public Optional<Path> getCacheBroadcastDirectory() {
+    return cacheBroadcastDirectory;
+  }
+
+  public int getCacheBroadcastPollInterval() {
+    return cacheBroadcastPollInterval;
+  }
+
+  public LockMode getLockMode() {
+    return lockMode;
+  }
+
+  public boolean persistLocks() {
+    return persistLocks;
+  }
+
+  /** Number of seconds a rename lease stays valid without being renewed. */
+  public int getLeaseDuration() {
+    return leaseDuration;
+  }
+
+  /** Number of seconds between two checks for expired rename leases, 0 to check at startup only. */
+  public int getLeaseRecoveryInterval() {
+    return leaseRecoveryInterval;
+  }
+
+  /** Number of seconds a rename waits for a conflicting rename to complete before failing. */
+  public int getRenameLockTimeout() {
+    return renameLockTimeout;
+  }
+
+  /** Number of queued renames run at the same time. */
+  public int getJobQueueThreads() {
+    return jobQueueThreads;
+  }
+
+  /**
+   * Estimated number of seconds above which a rename must be confirmed, 0 to use the number of
+   * changes instead.
+   */
+  public int getWarningDuration() {
+    return warningDuration;
+  }
+
+  /** Whether the independent steps of a rename run concurrently once the repository is moved. */
+  public boolean parallelSteps() {
+    return parallelSteps;
+  }
+
+  /** Number of seconds a step of a rename may run before the rename is aborted, 0 for no limit. */
+  public int getStepTimeout(String step) {
+    return stepTimeouts.getOrDefault(step, 0);
+  }
+
+  /** Daily window in which the renames deferred to the maintenance window run, if configured. */
+  public Optional<MaintenanceWindow> getMaintenanceWindow() {
+    return maintenanceWindow;
+  }
+
+  /** Whether queued renames exceeding the warning limit are deferred to the maintenance window. */
+  public boolean deferLargeRenames() {
+    return deferLargeRenames;
+  }
+
+  /** Number of renames running at the same time above which no rename starts, 0 for no limit. */
+  public int getMaxActiveRenames() {
+    return maxActiveRenames;
+  }
+
+  /** Number of tasks waiting to be indexed above which no rename starts, 0 for no limit. */
+  public int getMaxIndexQueueDepth() {
+    return maxIndexQueueDepth;
+  }
+
+  /** Percentage of the heap in use above which no rename starts, 0 for no limit. */
+  public int getMaxHeapUsage() {
+    return maxHeapUsage;
+  }
+
+  /** Load average, as a percentage of the processors, above which no rename starts, 0 for none. */
+  public int getMaxCpuLoad() {
+    return maxCpuLoad;
+  }
+
+  /** Number of renames a user without the Rename Project capability may start per day. */
+  public int getUserRenameQuota() {
+    return userRenameQuota;
+  }
+
+  /** Number of seconds after which a rename rejected because of the load is retried. */
+  public int getAdmissionRetryAfter() {
+    return admissionRetryAfter;
+  }
 }
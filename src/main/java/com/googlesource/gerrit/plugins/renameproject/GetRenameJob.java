@@ -0,0 +1,52 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.base.Strings;
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.BadRequestException;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.inject.Inject;
+import org.kohsuke.args4j.Option;
+
+/**
+ * Reports the status, current step, progress and result of a rename job, to its owner or to the
+ * users who may rename any project.
+ */
+public class GetRenameJob implements RestReadView<ConfigResource> {
+  private final RenameJobQueue jobQueue;
+  private final RenameJobAccess access;
+
+  @Option(name = "--id", metaVar = "ID", usage = "id of the rename job")
+  private String id;
+
+  @Inject
+  GetRenameJob(RenameJobQueue jobQueue, RenameJobAccess access) {
+    this.jobQueue = jobQueue;
+    this.access = access;
+  }
+
+  @Override
+  public Response<RenameJob> apply(ConfigResource resource)
+      throws AuthException, BadRequestException, ResourceNotFoundException {
+    if (Strings.isNullOrEmpty(id)) {
+      throw new BadRequestException("Id of the rename job cannot be null or empty");
+    }
+    return Response.ok(access.check(jobQueue.get(id)));
+  }
+}
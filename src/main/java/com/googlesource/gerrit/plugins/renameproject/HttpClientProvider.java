@@ -61,11 +61,11 @@ class HttpClientProvider implements Provider<CloseableHttpClient> {
         .setSSLSocketFactory(sslSocketFactory)
         .setConnectionManager(customConnectionManager())
         .setDefaultCredentialsProvider(buildCredentials())
-        .setDefaultRequestConfig(customRequestConfig())
+        .setDefaultRequestConfig(customRequestConfig(cfg))
         .build();
   }
 
-  private RequestConfig customRequestConfig() {
+  static RequestConfig customRequestConfig(Configuration cfg) {
     return RequestConfig.custom()
         .setConnectTimeout(cfg.getConnectionTimeout())
         .setSocketTimeout(cfg.getSocketTimeout())
@@ -48,6 +48,8 @@ public class HttpSession {
     UsernamePasswordCredentials creds =
         new UsernamePasswordCredentials(cfg.getUser(), cfg.getPassword());
     post.addHeader(new BasicScheme().authenticate(creds, post, null));
+    // the timeouts may have been reloaded since the client was built
+    post.setConfig(HttpClientProvider.customRequestConfig(cfg));
     setContent(post, content);
 
     return httpClient.execute(post, new HttpResponseHandler());
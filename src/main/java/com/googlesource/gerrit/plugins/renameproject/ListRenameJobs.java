@@ -0,0 +1,41 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.List;
+
+/** Lists the rename jobs the caller may see. */
+@Singleton
+public class ListRenameJobs implements RestReadView<ConfigResource> {
+  private final RenameJobQueue jobQueue;
+  private final RenameJobAccess access;
+
+  @Inject
+  ListRenameJobs(RenameJobQueue jobQueue, RenameJobAccess access) {
+    this.jobQueue = jobQueue;
+    this.access = access;
+  }
+
+  @Override
+  public Response<List<RenameJob>> apply(ConfigResource resource) throws AuthException {
+    return Response.ok(access.filter(jobQueue.list()));
+  }
+}
@@ -21,6 +21,7 @@ import com.google.gerrit.server.project.ProjectCache;
 import com.google.gerrit.server.project.ProjectConfig;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.Configuration.LockMode;
 import java.io.IOException;
 import org.eclipse.jgit.errors.ConfigInvalidException;
 
@@ -29,18 +30,28 @@ public class LockUnlockProject {
   private final MetaDataUpdate.Server metaDataUpdateFactory;
   private final ProjectCache projectCache;
   private final ProjectConfig.Factory projectConfigFactory;
+  private final ProjectLockTable lockTable;
+  private final Configuration cfg;
 
   @Inject
   LockUnlockProject(
       MetaDataUpdate.Server metaDataUpdateFactory,
       ProjectCache projectCache,
-      ProjectConfig.Factory projectConfigFactory) {
+      ProjectConfig.Factory projectConfigFactory,
+      ProjectLockTable lockTable,
+      Configuration cfg) {
     this.metaDataUpdateFactory = metaDataUpdateFactory;
     this.projectCache = projectCache;
     this.projectConfigFactory = projectConfigFactory;
+    this.lockTable = lockTable;
+    this.cfg = cfg;
   }
 
   public void lock(Project.NameKey key) throws IOException, ConfigInvalidException {
+    if (cfg.getLockMode() == LockMode.MEMORY) {
+      lockTable.lock(key);
+      return;
+    }
     try (MetaDataUpdate md = metaDataUpdateFactory.create(key)) {
 
       ProjectConfig projectConfig = projectConfigFactory.read(md);
@@ -54,6 +65,10 @@ public class LockUnlockProject {
   }
 
   public void unlock(Project.NameKey key) throws IOException, ConfigInvalidException {
+    if (cfg.getLockMode() == LockMode.MEMORY) {
+      lockTable.unlock(key);
+      return;
+    }
     try (MetaDataUpdate md = metaDataUpdateFactory.create(key)) {
 
       ProjectConfig projectConfig = projectConfigFactory.read(md);
@@ -65,4 +80,14 @@ public class LockUnlockProject {
       projectCache.evict(p.getNameKey());
     }
   }
+
+  /**
+   * Follows the repository to its new name. A lock stored in refs/meta/config moves along with the
+   * repository, so only in-memory locks need to be moved.
+   */
+  public void moveLock(Project.NameKey oldKey, Project.NameKey newKey) throws IOException {
+    if (cfg.getLockMode() == LockMode.MEMORY) {
+      lockTable.move(oldKey, newKey);
+    }
+  }
 }
@@ -0,0 +1,75 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+
+/** Daily period of low traffic, in the time zone of the server, in which deferred renames run. */
+public class MaintenanceWindow {
+  private final LocalTime start;
+  private final LocalTime end;
+
+  /**
+   * Parses a window given as {@code HH:mm-HH:mm}. A window whose end is before its start spans
+   * midnight.
+   *
+   * @throws IllegalArgumentException if the value is not a valid, non empty window
+   */
+  static MaintenanceWindow parse(String value) {
+    int sep = value.indexOf('-');
+    if (sep < 0) {
+      throw new IllegalArgumentException("expected HH:mm-HH:mm");
+    }
+    try {
+      LocalTime start = LocalTime.parse(value.substring(0, sep).trim());
+      LocalTime end = LocalTime.parse(value.substring(sep + 1).trim());
+      if (start.equals(end)) {
+        throw new IllegalArgumentException("the window is empty");
+      }
+      return new MaintenanceWindow(start, end);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+
+  MaintenanceWindow(LocalTime start, LocalTime end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  boolean contains(ZonedDateTime time) {
+    LocalTime t = time.toLocalTime();
+    if (start.isBefore(end)) {
+      return !t.isBefore(start) && t.isBefore(end);
+    }
+    return !t.isBefore(start) || t.isBefore(end);
+  }
+
+  /** Earliest time within the window that is not before {@code time}. */
+  ZonedDateTime nextOpening(ZonedDateTime time) {
+    if (contains(time)) {
+      return time;
+    }
+    ZonedDateTime opening = time.with(start);
+    return opening.isAfter(time) ? opening : opening.plusDays(1);
+  }
+
+  @Override
+  public String toString() {
+    return start + "-" + end;
+  }
+}
@@ -14,17 +14,30 @@
 
 package com.googlesource.gerrit.plugins.renameproject;
 
+import static com.google.gerrit.server.config.ConfigResource.CONFIG_KIND;
 import static com.google.gerrit.server.project.ProjectResource.PROJECT_KIND;
 import static com.googlesource.gerrit.plugins.renameproject.RenameOwnProjectCapability.RENAME_OWN_PROJECT;
 import static com.googlesource.gerrit.plugins.renameproject.RenameProjectCapability.RENAME_PROJECT;
 
 import com.google.gerrit.extensions.annotations.Exports;
 import com.google.gerrit.extensions.config.CapabilityDefinition;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
 import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.events.NewProjectCreatedListener;
+import com.google.gerrit.extensions.events.ProjectDeletedListener;
+import com.google.gerrit.extensions.registration.DynamicItem;
+import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.gerrit.extensions.restapi.RestApiModule;
+import com.google.gerrit.server.git.validators.CommitValidationListener;
+import com.google.gerrit.server.git.validators.OnSubmitValidationListener;
+import com.google.gerrit.server.git.validators.RefOperationValidationListener;
 import com.google.inject.AbstractModule;
 import com.google.inject.internal.UniqueAnnotations;
+import com.googlesource.gerrit.plugins.renameproject.cache.CacheInvalidationBroadcaster;
 import com.googlesource.gerrit.plugins.renameproject.cache.CacheRenameHandler;
+import com.googlesource.gerrit.plugins.renameproject.cache.ChildProjectIndex;
+import com.googlesource.gerrit.plugins.renameproject.cache.FileSystemCacheInvalidationBroadcaster;
+import com.googlesource.gerrit.plugins.renameproject.cache.SubscriptionIndex;
 import com.googlesource.gerrit.plugins.renameproject.conditions.RenamePreconditions;
 import com.googlesource.gerrit.plugins.renameproject.database.DatabaseRenameHandler;
 import com.googlesource.gerrit.plugins.renameproject.database.IndexUpdateHandler;
@@ -36,7 +49,34 @@ public class Module extends AbstractModule {
   @Override
   protected void configure() {
     bind(LifecycleListener.class).annotatedWith(UniqueAnnotations.create()).to(RenameLog.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(RenameLeaseManager.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(RenameJobQueue.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(RenameProject.class);
     bind(CacheRenameHandler.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(ChildProjectIndex.class);
+    DynamicSet.bind(binder(), NewProjectCreatedListener.class).to(ChildProjectIndex.class);
+    DynamicSet.bind(binder(), ProjectDeletedListener.class).to(ChildProjectIndex.class);
+    DynamicSet.bind(binder(), GitReferenceUpdatedListener.class).to(ChildProjectIndex.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(SubscriptionIndex.class);
+    DynamicSet.bind(binder(), NewProjectCreatedListener.class).to(SubscriptionIndex.class);
+    DynamicSet.bind(binder(), ProjectDeletedListener.class).to(SubscriptionIndex.class);
+    DynamicSet.bind(binder(), GitReferenceUpdatedListener.class).to(SubscriptionIndex.class);
+    DynamicItem.itemOf(binder(), CacheInvalidationBroadcaster.class);
+    DynamicItem.bind(binder(), CacheInvalidationBroadcaster.class)
+        .to(FileSystemCacheInvalidationBroadcaster.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(FileSystemCacheInvalidationBroadcaster.class);
     bind(CapabilityDefinition.class)
         .annotatedWith(Exports.named(RENAME_PROJECT))
         .to(RenameProjectCapability.class);
@@ -46,8 +86,14 @@ public class Module extends AbstractModule {
     bind(DatabaseRenameHandler.class);
     bind(FilesystemRenameHandler.class);
     bind(RenamePreconditions.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(RenamePreconditions.class);
     bind(IndexUpdateHandler.class);
     bind(RevertRenameProject.class);
+    DynamicSet.bind(binder(), RefOperationValidationListener.class).to(ProjectLockValidator.class);
+    DynamicSet.bind(binder(), CommitValidationListener.class).to(ProjectLockValidator.class);
+    DynamicSet.bind(binder(), OnSubmitValidationListener.class).to(ProjectLockValidator.class);
     bind(SshSessionFactory.class).toProvider(RenameReplicationSshSessionFactoryProvider.class);
     install(new RestRenameReplicationModule());
     install(
@@ -55,6 +101,14 @@ public class Module extends AbstractModule {
           @Override
           protected void configure() {
             post(PROJECT_KIND, "rename").to(RenameProject.class);
+            post(PROJECT_KIND, "cancel-rename").to(CancelRename.class);
+            get(CONFIG_KIND, "rename-jobs").to(ListRenameJobs.class);
+            get(CONFIG_KIND, "rename-job").to(GetRenameJob.class);
+            post(CONFIG_KIND, "cancel-rename-job").to(CancelRenameJob.class);
+            post(CONFIG_KIND, BulkRenameProject.BULK_RENAME_ACTION).to(BulkRenameProject.class);
+            post(CONFIG_KIND, RenameNamespace.RENAME_NAMESPACE_ACTION).to(RenameNamespace.class);
+            post(CONFIG_KIND, ReloadConfiguration.RELOAD_CONFIG_ACTION)
+                .to(ReloadConfiguration.class);
           }
         });
   }
@@ -0,0 +1,106 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Projects locked for writes while being renamed, when the in-memory lock mode is used.
+ *
+ * <p>When persistence is enabled, the table is written to the plugin data directory on every change
+ * and reloaded on startup, so that a restart does not silently unlock a project being renamed.
+ */
+@Singleton
+public class ProjectLockTable {
+  private static final Logger log = LoggerFactory.getLogger(ProjectLockTable.class);
+  private static final String LOCKS_FILE = "locks";
+
+  private final Set<Project.NameKey> locked = ConcurrentHashMap.newKeySet();
+  private final Path locksFile;
+  private final boolean persist;
+
+  @Inject
+  ProjectLockTable(@PluginData Path pluginData, Configuration cfg) {
+    this.locksFile = pluginData.resolve(LOCKS_FILE);
+    this.persist = cfg.persistLocks();
+    if (persist) {
+      load();
+    }
+  }
+
+  public boolean isLocked(Project.NameKey key) {
+    return locked.contains(key);
+  }
+
+  public void lock(Project.NameKey key) throws IOException {
+    if (locked.add(key)) {
+      save();
+    }
+  }
+
+  public void unlock(Project.NameKey key) throws IOException {
+    if (locked.remove(key)) {
+      save();
+    }
+  }
+
+  /** Moves the lock of a project that was locked under its old name to its new name. */
+  public void move(Project.NameKey oldKey, Project.NameKey newKey) throws IOException {
+    if (locked.remove(oldKey)) {
+      locked.add(newKey);
+      save();
+    }
+  }
+
+  private void load() {
+    if (!Files.exists(locksFile)) {
+      return;
+    }
+    try {
+      for (String name : Files.readAllLines(locksFile, StandardCharsets.UTF_8)) {
+        if (!name.isEmpty()) {
+          locked.add(Project.nameKey(name));
+        }
+      }
+      log.info("Loaded {} project lock(s) from {}", locked.size(), locksFile);
+    } catch (IOException e) {
+      log.error("Failed to load project locks from {}", locksFile, e);
+    }
+  }
+
+  private synchronized void save() throws IOException {
+    if (!persist) {
+      return;
+    }
+    List<String> names = locked.stream().map(Project.NameKey::get).collect(Collectors.toList());
+    Path tmp = Files.createTempFile(locksFile.getParent(), LOCKS_FILE, ".tmp");
+    Files.write(tmp, names, StandardCharsets.UTF_8);
+    Files.move(tmp, locksFile, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
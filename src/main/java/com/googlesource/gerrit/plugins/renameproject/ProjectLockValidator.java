@@ -0,0 +1,74 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.events.CommitReceivedEvent;
+import com.google.gerrit.server.events.RefReceivedEvent;
+import com.google.gerrit.server.git.validators.CommitValidationException;
+import com.google.gerrit.server.git.validators.CommitValidationInfo;
+import com.google.gerrit.server.git.validators.CommitValidationListener;
+import com.google.gerrit.server.git.validators.OnSubmitValidationListener;
+import com.google.gerrit.server.git.validators.RefOperationValidationListener;
+import com.google.gerrit.server.git.validators.ValidationMessage;
+import com.google.gerrit.server.validators.ValidationException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.List;
+
+/** Rejects writes to projects locked in the {@link ProjectLockTable}. */
+@Singleton
+public class ProjectLockValidator
+    implements RefOperationValidationListener,
+        CommitValidationListener,
+        OnSubmitValidationListener {
+
+  private final ProjectLockTable lockTable;
+
+  @Inject
+  ProjectLockValidator(ProjectLockTable lockTable) {
+    this.lockTable = lockTable;
+  }
+
+  @Override
+  public List<ValidationMessage> onRefOperation(RefReceivedEvent refEvent)
+      throws ValidationException {
+    if (lockTable.isLocked(refEvent.getProjectNameKey())) {
+      throw new ValidationException(lockedMessage(refEvent.getProjectNameKey()));
+    }
+    return ImmutableList.of();
+  }
+
+  @Override
+  public CommitValidationInfo validateCommit(CommitReceivedEvent receiveEvent)
+      throws CommitValidationException {
+    if (lockTable.isLocked(receiveEvent.getProjectNameKey())) {
+      throw new CommitValidationException(lockedMessage(receiveEvent.getProjectNameKey()));
+    }
+    return CommitValidationInfo.passed(CommitValidationInfo.NO_METADATA, ImmutableList.of());
+  }
+
+  @Override
+  public void preBranchUpdate(Arguments args) throws ValidationException {
+    if (lockTable.isLocked(args.getProject())) {
+      throw new ValidationException(lockedMessage(args.getProject()));
+    }
+  }
+
+  private static String lockedMessage(Project.NameKey key) {
+    return String.format("Project %s is locked while being renamed", key.get());
+  }
+}
@@ -0,0 +1,57 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.extensions.common.Input;
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestModifyView;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.gerrit.server.permissions.GlobalPermission;
+import com.google.gerrit.server.permissions.PermissionBackend;
+import com.google.gerrit.server.permissions.PermissionBackendException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Reloads the settings that tune the renames from gerrit.config, without reloading the plugin and
+ * interrupting the renames in progress.
+ */
+@Singleton
+public class ReloadConfiguration implements RestModifyView<ConfigResource, Input> {
+  static final String RELOAD_CONFIG_ACTION = "reload-config";
+
+  private final Configuration cfg;
+  private final RenameJobQueue jobQueue;
+  private final PermissionBackend permissionBackend;
+
+  @Inject
+  ReloadConfiguration(
+      Configuration cfg, RenameJobQueue jobQueue, PermissionBackend permissionBackend) {
+    this.cfg = cfg;
+    this.jobQueue = jobQueue;
+    this.permissionBackend = permissionBackend;
+  }
+
+  @Override
+  public Response<ImmutableMap<String, String>> apply(ConfigResource resource, Input input)
+      throws AuthException, PermissionBackendException {
+    permissionBackend.currentUser().check(GlobalPermission.ADMINISTRATE_SERVER);
+    ImmutableMap<String, String> tuning = cfg.reload();
+    jobQueue.resize();
+    return Response.ok(tuning);
+  }
+}
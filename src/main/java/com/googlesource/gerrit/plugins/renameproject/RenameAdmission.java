@@ -0,0 +1,125 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a rename may start now, from the load of the server and the number of renames
+ * recently started by the user.
+ *
+ * <p>The quota of a user is only counted in memory and is reset by a restart.
+ */
+@Singleton
+public class RenameAdmission {
+  private static final long QUOTA_PERIOD_MS = TimeUnit.DAYS.toMillis(1);
+  private static final String[] INDEX_QUEUES = {"Index-Interactive", "Index-Batch"};
+
+  private final Configuration cfg;
+  private final WorkQueue workQueue;
+  private final RenameOperations operations;
+  private final Map<Account.Id, Deque<Long>> renamesByUser = new HashMap<>();
+
+  @Inject
+  RenameAdmission(Configuration cfg, WorkQueue workQueue, RenameOperations operations) {
+    this.cfg = cfg;
+    this.workQueue = workQueue;
+    this.operations = operations;
+  }
+
+  /** Why the server is too busy to start a rename now, if it is. */
+  public Optional<String> checkLoad() {
+    int active = operations.all().size();
+    if (cfg.getMaxActiveRenames() > 0 && active >= cfg.getMaxActiveRenames()) {
+      return Optional.of(String.format("%d rename(s) are already running", active));
+    }
+    int indexQueueDepth = getIndexQueueDepth();
+    if (cfg.getMaxIndexQueueDepth() > 0 && indexQueueDepth > cfg.getMaxIndexQueueDepth()) {
+      return Optional.of(String.format("%d task(s) are waiting to be indexed", indexQueueDepth));
+    }
+    Runtime runtime = Runtime.getRuntime();
+    long heapUsage = (runtime.totalMemory() - runtime.freeMemory()) * 100 / runtime.maxMemory();
+    if (cfg.getMaxHeapUsage() > 0 && heapUsage > cfg.getMaxHeapUsage()) {
+      return Optional.of(String.format("%d%% of the heap is used", heapUsage));
+    }
+    double loadAverage = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+    if (cfg.getMaxCpuLoad() > 0 && loadAverage >= 0) {
+      long cpuLoad = Math.round(loadAverage * 100 / runtime.availableProcessors());
+      if (cpuLoad > cfg.getMaxCpuLoad()) {
+        return Optional.of(String.format("the CPU load is %d%%", cpuLoad));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Rejects the rename if the server is too busy to start it now. */
+  public void assertNotBusy() throws RenameRejectedException {
+    Optional<String> busy = checkLoad();
+    if (busy.isPresent()) {
+      throw new RenameRejectedException(
+          "The server is too busy to rename projects: " + busy.get(),
+          cfg.getAdmissionRetryAfter());
+    }
+  }
+
+  /**
+   * Counts renames started by a user against the quota of renames per day, rejecting them if the
+   * quota is exceeded.
+   */
+  public synchronized void chargeQuota(Account.Id user, int renames)
+      throws RenameRejectedException {
+    int quota = cfg.getUserRenameQuota();
+    if (quota <= 0) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    Deque<Long> started = renamesByUser.computeIfAbsent(user, u -> new ArrayDeque<>());
+    while (!started.isEmpty() && started.peekFirst() <= now - QUOTA_PERIOD_MS) {
+      started.removeFirst();
+    }
+    if (started.size() + renames > quota) {
+      long retryAfterMs =
+          started.isEmpty() ? QUOTA_PERIOD_MS : started.peekFirst() + QUOTA_PERIOD_MS - now;
+      throw new RenameRejectedException(
+          String.format("The quota of %d rename(s) per day is used up", quota),
+          TimeUnit.MILLISECONDS.toSeconds(retryAfterMs) + 1);
+    }
+    for (int i = 0; i < renames; i++) {
+      started.addLast(now);
+    }
+  }
+
+  private int getIndexQueueDepth() {
+    int depth = 0;
+    for (String name : INDEX_QUEUES) {
+      ScheduledThreadPoolExecutor executor = workQueue.getExecutor(name);
+      if (executor != null) {
+        depth += executor.getQueue().size();
+      }
+    }
+    return depth;
+  }
+}
@@ -14,9 +14,9 @@
 
 package com.googlesource.gerrit.plugins.renameproject;
 
-import static com.googlesource.gerrit.plugins.renameproject.RenameProject.WARNING_LIMIT;
-
+import com.google.common.base.Strings;
 import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.restapi.RestApiException;
 import com.google.gerrit.server.CurrentUser;
 import com.google.gerrit.server.project.ProjectResource;
@@ -30,9 +30,14 @@ import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,25 +49,130 @@ public final class RenameCommand extends SshCommand {
   @Argument(index = 1, required = true, metaVar = "NEWNAME", usage = "new name for the project")
   private String newProjectName;
 
+  @Argument(
+      index = 2,
+      multiValued = true,
+      metaVar = "OLDPROJECT NEWNAME",
+      usage = "further projects to rename in the same operation, as pairs of names")
+  private List<String> moreRenames = new ArrayList<>();
+
+  @Option(
+      name = "--storage-tier",
+      metaVar = "TIER",
+      usage = "name of the configured storage tier to move the repository to")
+  private String storageTier;
+
+  @Option(
+      name = "--async",
+      usage = "queue the rename and print the id of the rename job instead of waiting for it")
+  private boolean async;
+
+  @Option(
+      name = "--priority",
+      metaVar = "PRIORITY",
+      usage = "priority of the queued rename, higher priorities run first")
+  private int priority;
+
+  @Option(
+      name = "--not-before",
+      metaVar = "TIME",
+      usage = "queue the rename to start no earlier than this ISO-8601 time with offset")
+  private String notBefore;
+
+  @Option(
+      name = "--maintenance-window",
+      usage = "queue the rename to run in the configured maintenance window")
+  private boolean maintenanceWindow;
+
+  @Option(
+      name = "--index-threads",
+      metaVar = "THREADS",
+      usage = "number of threads reindexing the changes, up to the configured maximum")
+  private Integer indexThreads;
+
+  @Option(
+      name = "--move-rate",
+      metaVar = "BYTES",
+      usage = "maximum number of bytes per second copied when moving to a storage tier")
+  private Long moveRate;
+
+  @Option(
+      name = "--background-reindex",
+      usage = "reindex the changes in the background once the project is unlocked")
+  private boolean backgroundReindex;
+
+  @Option(
+      name = "--async-replication",
+      usage = "replicate the rename in the background instead of waiting for the replicas")
+  private boolean asyncReplication;
+
+  @Option(
+      name = "--reparent-children",
+      usage = "rename a project having child projects and point them to its new name")
+  private boolean reparentChildren;
+
+  @Option(name = "--dry-run", usage = "print what the rename would involve without renaming")
+  private boolean dryRun;
+
   private static final Logger log = LoggerFactory.getLogger(RenameCommand.class);
   private final RenameProject renameProject;
+  private final BulkRenameProject bulkRenameProject;
   private final Provider<CurrentUser> self;
 
   @Inject
-  protected RenameCommand(RenameProject renameProject, Provider<CurrentUser> self) {
+  protected RenameCommand(
+      RenameProject renameProject,
+      BulkRenameProject bulkRenameProject,
+      Provider<CurrentUser> self) {
     this.renameProject = renameProject;
+    this.bulkRenameProject = bulkRenameProject;
     this.self = self;
   }
 
   @Override
   public void run() throws Exception {
+    if (!moreRenames.isEmpty()) {
+      bulkRename();
+      return;
+    }
     try {
       RenameProject.Input input = new RenameProject.Input();
       input.name = newProjectName;
+      input.storageTier = storageTier;
+      input.async = async;
+      input.priority = priority;
+      input.notBefore = notBefore;
+      input.maintenanceWindow = maintenanceWindow;
+      input.indexThreads = indexThreads;
+      input.moveRate = moveRate;
+      input.backgroundReindex = backgroundReindex;
+      input.reparentChildren = reparentChildren;
+      if (asyncReplication) {
+        input.replication = RenameProject.ReplicationMode.ASYNC;
+      }
       ProjectResource rsrc = new ProjectResource(projectState, self.get());
+      if (dryRun) {
+        RenamePlan plan;
+        // the plan is printed once the progress monitor stopped writing
+        try (CommandProgressMonitor monitor = new CommandProgressMonitor(stdout)) {
+          renameProject.assertCanRename(rsrc, input, monitor);
+          plan = renameProject.plan(rsrc, input, renameProject.getChanges(rsrc, monitor));
+        }
+        stdout.print(plan);
+        stdout.flush();
+        return;
+      }
       try (CommandProgressMonitor monitor = new CommandProgressMonitor(stdout)) {
         renameProject.assertCanRename(rsrc, input, monitor);
         Set<Change.Id> changeIds = renameProject.getChanges(rsrc, monitor);
+        if (async || input.isScheduled()) {
+          if (continueRename(changeIds, monitor)) {
+            RenameJob job = renameProject.queueRename(rsrc, input, changeIds);
+            stdout.println(String.format("\nQueued rename job %s", job.getId()));
+          }
+          stdout.flush();
+          return;
+        }
         if (!renameProject.startRename(
             rsrc, input, monitor, continueRename(changeIds, monitor), changeIds)) {
           stdout.flush();
@@ -73,15 +183,54 @@ public final class RenameCommand extends SshCommand {
     }
   }
 
+  private void bulkRename() throws Exception {
+    if (moreRenames.size() % 2 != 0) {
+      throw die("Projects to rename must be given as pairs of old and new names");
+    }
+    if (!Strings.isNullOrEmpty(storageTier)) {
+      throw die("--storage-tier cannot be used when renaming several projects");
+    }
+    if (dryRun) {
+      throw die("--dry-run cannot be used when renaming several projects");
+    }
+    if (async || priority != 0 || notBefore != null || maintenanceWindow) {
+      throw die("Renames of several projects cannot be queued or scheduled");
+    }
+    if (indexThreads != null || moveRate != null || backgroundReindex || asyncReplication) {
+      throw die("Performance settings cannot be overridden when renaming several projects");
+    }
+    if (reparentChildren) {
+      throw die("--reparent-children cannot be used when renaming several projects");
+    }
+    Map<Project.NameKey, String> renames = new LinkedHashMap<>();
+    renames.put(projectState.getNameKey(), newProjectName);
+    for (int i = 0; i < moreRenames.size(); i += 2) {
+      renames.put(Project.nameKey(moreRenames.get(i)), moreRenames.get(i + 1));
+    }
+    try (CommandProgressMonitor monitor = new CommandProgressMonitor(stdout)) {
+      BulkRenameProject.Plan plan = bulkRenameProject.prepare(renames, monitor);
+      boolean continueRename = continueRename(plan.getChangeCount(), monitor);
+      if (!bulkRenameProject.execute(plan, continueRename, monitor)) {
+        stdout.flush();
+      }
+    } catch (RestApiException | IOException e) {
+      throw die(e);
+    }
+  }
+
   private boolean continueRename(Set<Change.Id> changes, ProgressMonitor pm) throws IOException {
-    if (changes != null && changes.size() > WARNING_LIMIT) {
+    return continueRename(changes == null ? 0 : changes.size(), pm);
+  }
+
+  private boolean continueRename(int changeCount, ProgressMonitor pm) throws IOException {
+    if (renameProject.exceedsWarningLimit(changeCount)) {
       // close the progress task explicitly this time to get user input
       pm.close();
       stdout.print(
           String.format(
               "\nThis project contains %d changes and renaming the project will take longer time.\n"
                   + "Do you still want to continue? [y/N]: ",
-              changes.size()));
+              changeCount));
       stdout.flush();
       try (BufferedReader input = new BufferedReader(new InputStreamReader(in))) {
         String userInput = input.readLine();
@@ -0,0 +1,113 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Project;
+import com.googlesource.gerrit.plugins.renameproject.RenameProject.Input;
+import com.googlesource.gerrit.plugins.renameproject.monitor.RecordingProgressMonitor;
+import java.util.Comparator;
+import java.util.Optional;
+
+/** A rename waiting in, or run by, the {@link RenameJobQueue}. */
+public class RenameJob {
+  public enum Status {
+    SCHEDULED,
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED
+  }
+
+  /** Higher priorities first, then projects with fewer changes, then the oldest submissions. */
+  static final Comparator<RenameJob> ORDER =
+      Comparator.comparingInt((RenameJob j) -> -j.priority)
+          .thenComparingInt(j -> j.changeCount)
+          .thenComparingLong(j -> j.submittedAt);
+
+  String id;
+  String project;
+  Input input;
+  int accountId;
+  int priority;
+  int changeCount;
+  long submittedAt;
+  Long notBefore;
+  boolean maintenanceWindow;
+  String delayReason;
+  Long startedAt;
+  Long finishedAt;
+  Status status;
+  String error;
+  String lastStep;
+  String task;
+  Integer totalWork;
+  Integer completedWork;
+  Long remainingSeconds;
+  transient RecordingProgressMonitor monitor;
+
+  RenameJob(
+      String id,
+      Project.NameKey project,
+      Input input,
+      Account.Id accountId,
+      int changeCount,
+      long submittedAt) {
+    this.id = id;
+    this.project = project.get();
+    this.input = input;
+    this.accountId = accountId.get();
+    this.priority = input.priority;
+    this.changeCount = changeCount;
+    this.submittedAt = submittedAt;
+    this.status = Status.QUEUED;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public Project.NameKey getProjectKey() {
+    return Project.nameKey(project);
+  }
+
+  Input getInput() {
+    return input;
+  }
+
+  public Account.Id getAccountId() {
+    return Account.id(accountId);
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /** Copies the progress of the running rename into the fields reported to clients. */
+  synchronized void updateProgress(Optional<RenameOperation> op) {
+    if (status != Status.RUNNING || monitor == null) {
+      return;
+    }
+    task = monitor.getTask();
+    totalWork = monitor.getTotalWork();
+    completedWork = monitor.getCompletedWork();
+    long remaining = monitor.getRemainingSeconds();
+    remainingSeconds = remaining < 0 ? null : remaining;
+    op.map(RenameOperation::getStepsPerformed)
+        .filter(steps -> !steps.isEmpty())
+        .ifPresent(steps -> lastStep = steps.get(steps.size() - 1).name());
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.googlesource.gerrit.plugins.renameproject.RenameProjectCapability.RENAME_PROJECT;
+
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.extensions.api.access.PluginPermission;
+import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.permissions.GlobalPermission;
+import com.google.gerrit.server.permissions.PermissionBackend;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Restricts the rename jobs a user may see and cancel: all of them for the users who may rename any
+ * project, only their own ones for the users who may rename the projects they own.
+ */
+@Singleton
+class RenameJobAccess {
+  private final PermissionBackend permissionBackend;
+  private final Provider<CurrentUser> userProvider;
+  private final String pluginName;
+
+  @Inject
+  RenameJobAccess(
+      PermissionBackend permissionBackend,
+      Provider<CurrentUser> userProvider,
+      @PluginName String pluginName) {
+    this.permissionBackend = permissionBackend;
+    this.userProvider = userProvider;
+    this.pluginName = pluginName;
+  }
+
+  /** The jobs of the list the current user may see. */
+  List<RenameJob> filter(List<RenameJob> jobs) throws AuthException {
+    CurrentUser user = assertIdentified();
+    if (canAccessAll(user)) {
+      return jobs;
+    }
+    return jobs.stream().filter(job -> isOwner(user, job)).collect(Collectors.toList());
+  }
+
+  /**
+   * Checks that the current user may see the job.
+   *
+   * @throws ResourceNotFoundException if the job belongs to another user, as if it did not exist.
+   */
+  RenameJob check(RenameJob job) throws AuthException, ResourceNotFoundException {
+    CurrentUser user = assertIdentified();
+    if (!canAccessAll(user) && !isOwner(user, job)) {
+      throw new ResourceNotFoundException(String.format("Rename job %s not found", job.getId()));
+    }
+    return job;
+  }
+
+  private CurrentUser assertIdentified() throws AuthException {
+    CurrentUser user = userProvider.get();
+    if (!user.isIdentifiedUser()) {
+      throw new AuthException("Authentication required");
+    }
+    return user;
+  }
+
+  private boolean canAccessAll(CurrentUser user) {
+    PermissionBackend.WithUser perm = permissionBackend.user(user);
+    return perm.testOrFalse(GlobalPermission.ADMINISTRATE_SERVER)
+        || perm.testOrFalse(new PluginPermission(pluginName, RENAME_PROJECT));
+  }
+
+  private static boolean isOwner(CurrentUser user, RenameJob job) {
+    return user.getAccountId().equals(job.getAccountId());
+  }
+}
@@ -0,0 +1,443 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.restapi.BadRequestException;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.json.OutputFormat;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.IdentifiedUser;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.gerrit.server.util.RequestContext;
+import com.google.gerrit.server.util.ThreadLocalRequestContext;
+import com.google.gson.Gson;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.RenameProject.Input;
+import com.googlesource.gerrit.plugins.renameproject.monitor.RecordingProgressMonitor;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs renames in the background, a configurable number at a time, highest priority first.
+ *
+ * <p>A rename requested to start later, at a given time or in the maintenance window, is scheduled
+ * and only queued once it is due. Queued and scheduled jobs are persisted in the plugin data
+ * directory and queued again when the plugin restarts. Finished jobs are kept in memory for
+ * inspection, up to a fixed number.
+ */
+@Singleton
+public class RenameJobQueue implements LifecycleListener {
+  private static final Logger log = LoggerFactory.getLogger(RenameJobQueue.class);
+  private static final String JOBS_DIR = "jobs";
+  private static final String SUFFIX = ".json";
+  private static final int MAX_FINISHED_JOBS = 100;
+  private static final int WORKER_POLL_SECONDS = 10;
+
+  private final Path jobsDir;
+  private final Configuration cfg;
+  private final Provider<RenameProject> renameProjectProvider;
+  private final ProjectCache projectCache;
+  private final IdentifiedUser.GenericFactory userFactory;
+  private final ThreadLocalRequestContext requestContext;
+  private final RenameOperations operations;
+  private final WorkQueue workQueue;
+  private final RenameAdmission admission;
+  private final Gson gson = OutputFormat.JSON_COMPACT.newGson();
+  private final PriorityBlockingQueue<RenameJob> queue =
+      new PriorityBlockingQueue<>(11, RenameJob.ORDER);
+  private final Map<String, RenameJob> jobs = new ConcurrentHashMap<>();
+  private final Deque<String> finished = new ArrayDeque<>();
+  private final Map<String, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
+  private final AtomicInteger workerCount = new AtomicInteger();
+  private ScheduledThreadPoolExecutor workers;
+
+  @Inject
+  RenameJobQueue(
+      @PluginData Path pluginData,
+      Configuration cfg,
+      Provider<RenameProject> renameProjectProvider,
+      ProjectCache projectCache,
+      IdentifiedUser.GenericFactory userFactory,
+      ThreadLocalRequestContext requestContext,
+      RenameOperations operations,
+      WorkQueue workQueue,
+      RenameAdmission admission) {
+    this.jobsDir = pluginData.resolve(JOBS_DIR);
+    this.cfg = cfg;
+    this.renameProjectProvider = renameProjectProvider;
+    this.projectCache = projectCache;
+    this.userFactory = userFactory;
+    this.requestContext = requestContext;
+    this.operations = operations;
+    this.workQueue = workQueue;
+    this.admission = admission;
+  }
+
+  @Override
+  public void start() {
+    load();
+    workers = workQueue.createQueue(maxWorkers(), "Rename-Job", false);
+    resize();
+  }
+
+  /**
+   * Starts workers until there are as many as configured. Extra workers, after the number of
+   * threads was reduced, stop once they are done with their current job.
+   */
+  public synchronized void resize() {
+    if (workers == null) {
+      return;
+    }
+    // only idle threads are stopped when it shrinks, the extra workers keep theirs until they stop
+    workers.setCorePoolSize(maxWorkers());
+    while (workerCount.get() < maxWorkers()) {
+      workerCount.incrementAndGet();
+      workers.execute(this::work);
+    }
+  }
+
+  private int maxWorkers() {
+    return Math.max(1, cfg.getJobQueueThreads());
+  }
+
+  @Override
+  public synchronized void stop() {
+    timers.values().forEach(t -> t.cancel(false));
+    timers.clear();
+    if (workers != null) {
+      workers.shutdownNow();
+      workers = null;
+      workerCount.set(0);
+    }
+  }
+
+  /**
+   * Queues the rename of the project to the name given in the input, or schedules it if it must
+   * not start before a given time or must run in the maintenance window.
+   */
+  public RenameJob submit(ProjectResource rsrc, Input input, int changeCount)
+      throws BadRequestException, IOException {
+    RenameJob job =
+        new RenameJob(
+            UUID.randomUUID().toString(),
+            rsrc.getNameKey(),
+            input,
+            rsrc.getUser().asIdentifiedUser().getAccountId(),
+            changeCount,
+            System.currentTimeMillis());
+    if (cfg.getMaxPriority() > 0) {
+      job.priority = Math.min(job.priority, cfg.getMaxPriority());
+    }
+    job.notBefore = parseNotBefore(input.notBefore);
+    job.maintenanceWindow =
+        input.maintenanceWindow
+            || (cfg.deferLargeRenames()
+                && cfg.getMaintenanceWindow().isPresent()
+                && renameProjectProvider.get().exceedsWarningLimit(changeCount));
+    if (job.maintenanceWindow && !cfg.getMaintenanceWindow().isPresent()) {
+      throw new BadRequestException("No maintenance window is configured");
+    }
+    if (startTime(job) > System.currentTimeMillis()) {
+      job.status = RenameJob.Status.SCHEDULED;
+    }
+    save(job);
+    jobs.put(job.id, job);
+    enqueue(job);
+    log.debug("Submitted rename of {} to {} as job {}", job.project, input.name, job.id);
+    return job;
+  }
+
+  private static Long parseNotBefore(String notBefore) throws BadRequestException {
+    if (notBefore == null) {
+      return null;
+    }
+    try {
+      return OffsetDateTime.parse(notBefore).toInstant().toEpochMilli();
+    } catch (DateTimeParseException e) {
+      throw new BadRequestException(
+          String.format(
+              "Invalid time %s, expected an ISO-8601 date and time with offset", notBefore));
+    }
+  }
+
+  /**
+   * Earliest time at which the job may start: not before its requested time and, if it must run in
+   * the maintenance window, when the window next opens.
+   */
+  private long startTime(RenameJob job) {
+    long now = System.currentTimeMillis();
+    ZonedDateTime time =
+        Instant.ofEpochMilli(job.notBefore == null ? now : Math.max(now, job.notBefore))
+            .atZone(ZoneId.systemDefault());
+    if (job.maintenanceWindow && cfg.getMaintenanceWindow().isPresent()) {
+      time = cfg.getMaintenanceWindow().get().nextOpening(time);
+    }
+    return time.toInstant().toEpochMilli();
+  }
+
+  /** Queues the job if it is due, or schedules it to be queued when it is. */
+  private void enqueue(RenameJob job) {
+    long delay = startTime(job) - System.currentTimeMillis();
+    synchronized (job) {
+      if (delay > 0) {
+        job.status = RenameJob.Status.SCHEDULED;
+        timers.put(
+            job.id,
+            workQueue
+                .getDefaultQueue()
+                .schedule(() -> release(job), delay, TimeUnit.MILLISECONDS));
+        log.debug("Scheduled rename job {} of {} in {} ms", job.id, job.project, delay);
+      } else {
+        job.status = RenameJob.Status.QUEUED;
+        queue.add(job);
+      }
+    }
+  }
+
+  /** Delays a job that cannot start because of the load of the server. */
+  private void defer(RenameJob job, String reason) {
+    log.info("Delaying rename job {} of {}: {}", job.id, job.project, reason);
+    job.notBefore =
+        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cfg.getAdmissionRetryAfter());
+    job.delayReason = reason;
+    enqueue(job);
+    try {
+      save(job);
+    } catch (IOException e) {
+      log.error("Failed to save rename job {}", job.id, e);
+    }
+  }
+
+  private void release(RenameJob job) {
+    synchronized (job) {
+      timers.remove(job.id);
+      if (job.status != RenameJob.Status.SCHEDULED) {
+        return;
+      }
+      enqueue(job);
+    }
+  }
+
+  public List<RenameJob> list() {
+    jobs.values().forEach(this::updateProgress);
+    return jobs.values().stream()
+        .sorted(RenameJob.ORDER)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  public RenameJob get(String id) throws ResourceNotFoundException {
+    RenameJob job = jobs.get(id);
+    if (job == null) {
+      throw new ResourceNotFoundException(String.format("Rename job %s not found", id));
+    }
+    updateProgress(job);
+    return job;
+  }
+
+  /** Cancels a job, reverting its rename if it already started. */
+  public RenameJob cancel(String id) throws ResourceNotFoundException, ResourceConflictException {
+    RenameJob job = get(id);
+    synchronized (job) {
+      if (job.status == RenameJob.Status.RUNNING) {
+        Optional<RenameOperation> op = operations.byOldProject(job.getProjectKey());
+        if (!op.isPresent() || !op.get().cancel()) {
+          throw new ResourceConflictException(
+              String.format("Rename job %s cannot be cancelled anymore", id));
+        }
+        return job;
+      }
+      if (job.status == RenameJob.Status.SCHEDULED) {
+        ScheduledFuture<?> timer = timers.remove(id);
+        if (timer != null) {
+          timer.cancel(false);
+        }
+      } else if (job.status != RenameJob.Status.QUEUED || !queue.remove(job)) {
+        throw new ResourceConflictException(
+            String.format("Rename job %s is %s and cannot be cancelled", id, job.status));
+      }
+      job.status = RenameJob.Status.CANCELLED;
+    }
+    done(job);
+    return job;
+  }
+
+  private void updateProgress(RenameJob job) {
+    job.updateProgress(operations.byOldProject(job.getProjectKey()));
+  }
+
+  private void work() {
+    while (!Thread.currentThread().isInterrupted() && !isExtraWorker()) {
+      RenameJob job;
+      try {
+        job = queue.poll(WORKER_POLL_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (job == null) {
+        continue;
+      }
+      synchronized (job) {
+        if (job.status != RenameJob.Status.QUEUED) {
+          continue;
+        }
+        if (startTime(job) > System.currentTimeMillis()) {
+          // the maintenance window closed while the job was waiting for a worker
+          enqueue(job);
+          continue;
+        }
+        Optional<String> busy = admission.checkLoad();
+        if (busy.isPresent()) {
+          defer(job, busy.get());
+          continue;
+        }
+        job.status = RenameJob.Status.RUNNING;
+        job.startedAt = System.currentTimeMillis();
+        job.delayReason = null;
+        job.monitor = new RecordingProgressMonitor();
+      }
+      run(job);
+    }
+  }
+
+  /** Whether this worker is one too many since the number of threads was reduced, and must stop. */
+  private boolean isExtraWorker() {
+    while (true) {
+      int count = workerCount.get();
+      if (count <= maxWorkers()) {
+        return false;
+      }
+      if (workerCount.compareAndSet(count, count - 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void run(RenameJob job) {
+    IdentifiedUser user = userFactory.create(job.getAccountId());
+    RequestContext old = requestContext.setContext(() -> user);
+    try {
+      save(job);
+      ProjectState state =
+          projectCache
+              .get(job.getProjectKey())
+              .orElseThrow(
+                  () -> new IOException(String.format("Project %s not found", job.project)));
+      renameProjectProvider
+          .get()
+          .renameNow(new ProjectResource(state, user), job.input, job.monitor);
+      job.status = RenameJob.Status.SUCCEEDED;
+    } catch (Exception e) {
+      log.error("Rename job {} of {} failed", job.id, job.project, e);
+      job.status = RenameJob.Status.FAILED;
+      job.error = e.getMessage();
+    } finally {
+      requestContext.setContext(old);
+      done(job);
+    }
+  }
+
+  private void done(RenameJob job) {
+    job.finishedAt = System.currentTimeMillis();
+    job.monitor = null;
+    job.remainingSeconds = null;
+    try {
+      Files.deleteIfExists(file(job.id));
+    } catch (IOException e) {
+      log.error("Failed to delete rename job {}", job.id, e);
+    }
+    synchronized (finished) {
+      finished.addLast(job.id);
+      while (finished.size() > MAX_FINISHED_JOBS) {
+        jobs.remove(finished.removeFirst());
+      }
+    }
+  }
+
+  private void load() {
+    if (!Files.isDirectory(jobsDir)) {
+      return;
+    }
+    List<Path> files;
+    try (Stream<Path> dir = Files.list(jobsDir)) {
+      files = dir.filter(f -> f.toString().endsWith(SUFFIX)).collect(Collectors.toList());
+    } catch (IOException e) {
+      log.error("Failed to list rename jobs in {}", jobsDir, e);
+      return;
+    }
+    for (Path file : files) {
+      try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        RenameJob job = gson.fromJson(reader, RenameJob.class);
+        jobs.put(job.id, job);
+        if (job.status == RenameJob.Status.QUEUED || job.status == RenameJob.Status.SCHEDULED) {
+          enqueue(job);
+        } else {
+          // the rename was interrupted by a restart and is recovered by RenameLeaseManager
+          job.status = RenameJob.Status.FAILED;
+          job.error = "Interrupted by a server restart";
+          done(job);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.error("Failed to load rename job {}", file, e);
+      }
+    }
+    log.info("Loaded {} queued and {} scheduled rename job(s)", queue.size(), timers.size());
+  }
+
+  private void save(RenameJob job) throws IOException {
+    Files.createDirectories(jobsDir);
+    Path tmp = Files.createTempFile(jobsDir, job.id, ".tmp");
+    Files.write(tmp, gson.toJson(job).getBytes(StandardCharsets.UTF_8));
+    Files.move(tmp, file(job.id), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private Path file(String id) {
+    return jobsDir.resolve(id + SUFFIX);
+  }
+}
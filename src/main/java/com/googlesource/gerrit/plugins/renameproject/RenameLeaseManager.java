@@ -0,0 +1,356 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.json.OutputFormat;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gson.Gson;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.RenameProject.Step;
+import com.googlesource.gerrit.plugins.renameproject.database.DatabaseRenameHandler;
+import com.googlesource.gerrit.plugins.renameproject.monitor.NoopMonitor;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Leases held on the projects being renamed.
+ *
+ * <p>A lease is persisted in the plugin data directory when a rename starts and renewed by a
+ * heartbeat for as long as the rename runs. It also journals the rename: each step is recorded,
+ * and synced to disk, before it starts and once it completed. A lease that is not renewed anymore,
+ * because the server crashed in the middle of a rename, expires and is recovered either at startup
+ * or by a periodic check: the journalled steps are reverted and the project is unlocked, unless all
+ * the local steps completed, in which case the rename is finished instead.
+ */
+@Singleton
+public class RenameLeaseManager implements LifecycleListener {
+  private static final Logger log = LoggerFactory.getLogger(RenameLeaseManager.class);
+  private static final String LEASES_DIR = "leases";
+  private static final String SUFFIX = ".json";
+
+  private final Path leasesDir;
+  private final Configuration cfg;
+  private final WorkQueue workQueue;
+  private final GitRepositoryManager repoManager;
+  private final DatabaseRenameHandler dbHandler;
+  private final RevertRenameProject revertRenameProject;
+  private final LockUnlockProject lockUnlockProject;
+  private final Gson gson = OutputFormat.JSON_COMPACT.newGson();
+  private final Map<String, Lease> held = new ConcurrentHashMap<>();
+  private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+
+  @Inject
+  RenameLeaseManager(
+      @PluginData Path pluginData,
+      Configuration cfg,
+      WorkQueue workQueue,
+      GitRepositoryManager repoManager,
+      DatabaseRenameHandler dbHandler,
+      RevertRenameProject revertRenameProject,
+      LockUnlockProject lockUnlockProject) {
+    this.leasesDir = pluginData.resolve(LEASES_DIR);
+    this.cfg = cfg;
+    this.workQueue = workQueue;
+    this.repoManager = repoManager;
+    this.dbHandler = dbHandler;
+    this.revertRenameProject = revertRenameProject;
+    this.lockUnlockProject = lockUnlockProject;
+  }
+
+  @Override
+  public void start() {
+    recover(true);
+    long heartbeat = Math.max(1, cfg.getLeaseDuration() / 3);
+    tasks.add(
+        workQueue
+            .getDefaultQueue()
+            .scheduleAtFixedRate(this::renewAll, heartbeat, heartbeat, TimeUnit.SECONDS));
+    int interval = cfg.getLeaseRecoveryInterval();
+    if (interval > 0) {
+      tasks.add(
+          workQueue
+              .getDefaultQueue()
+              .scheduleAtFixedRate(() -> recover(false), interval, interval, TimeUnit.SECONDS));
+    }
+  }
+
+  @Override
+  public void stop() {
+    tasks.forEach(t -> t.cancel(false));
+    tasks.clear();
+  }
+
+  /** Takes a lease on a rename, journalling its steps until it is released. */
+  public Lease acquire(RenameOperation op) throws IOException {
+    Lease lease = new Lease();
+    lease.id = op.getId();
+    lease.owner = cfg.getNodeId();
+    lease.oldProject = op.getOldProjectKey().get();
+    lease.newProject = op.getNewProjectKey().get();
+    write(lease);
+    held.put(lease.id, lease);
+    return lease;
+  }
+
+  /**
+   * Journals that a step of a rename is about to start. Nothing is journalled for a rename without
+   * a lease, like on a replica.
+   */
+  public void stepStarted(RenameOperation op, Step step) throws IOException {
+    Lease lease = held.get(op.getId());
+    if (lease != null) {
+      synchronized (lease) {
+        lease.started.add(step);
+        write(lease);
+      }
+    }
+  }
+
+  /**
+   * Journals that a step of a rename completed. A failure is only logged: a step journalled as
+   * started is reverted on recovery anyway.
+   */
+  public void stepCompleted(RenameOperation op, Step step) {
+    Lease lease = held.get(op.getId());
+    if (lease != null) {
+      synchronized (lease) {
+        lease.completed.add(step);
+        try {
+          write(lease);
+        } catch (IOException e) {
+          log.error("Failed to journal step {} of the rename of {}", step, lease.oldProject, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Journals that all the local steps of a rename completed, so that it is finished rather than
+   * reverted if the server crashes while it is replicated.
+   */
+  public void committed(RenameOperation op) throws IOException {
+    Lease lease = held.get(op.getId());
+    if (lease != null) {
+      synchronized (lease) {
+        lease.committed = true;
+        write(lease);
+      }
+    }
+  }
+
+  /**
+   * Releases the lease of a rename that completed or was reverted. A renewal already running does
+   * not write the lease back once it is released.
+   */
+  public void release(Lease lease) {
+    synchronized (lease) {
+      lease.released = true;
+      held.remove(lease.id);
+      try {
+        Files.deleteIfExists(file(lease.id));
+      } catch (IOException e) {
+        log.error("Failed to delete lease {} of {}", lease.id, lease.oldProject, e);
+      }
+    }
+  }
+
+  /**
+   * Stops renewing the lease of a rename that could not be reverted, so that recovery retries once
+   * the lease expires.
+   */
+  public void abandon(Lease lease) {
+    synchronized (lease) {
+      lease.released = true;
+      held.remove(lease.id);
+    }
+  }
+
+  private void renewAll() {
+    for (Lease lease : held.values()) {
+      try {
+        write(lease);
+      } catch (IOException e) {
+        log.error("Failed to renew lease {} of {}", lease.id, lease.oldProject, e);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  void recover(boolean startup) {
+    for (Lease lease : orphaned(startup)) {
+      log.warn(
+          "Recovering orphaned rename of {} to {} owned by {}",
+          lease.oldProject,
+          lease.newProject,
+          lease.owner);
+      try {
+        if (lease.committed) {
+          finish(Project.nameKey(lease.newProject));
+          log.warn(
+              "Finished orphaned rename of {} to {}, its replication may not have completed",
+              lease.oldProject,
+              lease.newProject);
+        } else {
+          revert(lease);
+          log.warn("Reverted orphaned rename of {} to {}", lease.oldProject, lease.newProject);
+        }
+        Files.deleteIfExists(file(lease.id));
+      } catch (Exception e) {
+        // the lease is kept, so that the recovery is retried
+        log.error(
+            "Failed to recover orphaned rename of {} to {}", lease.oldProject, lease.newProject, e);
+      }
+    }
+  }
+
+  private List<Lease> orphaned(boolean startup) {
+    if (!Files.isDirectory(leasesDir)) {
+      return ImmutableList.of();
+    }
+    List<Lease> orphaned = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    try (DirectoryStream<Path> dir = Files.newDirectoryStream(leasesDir, "*" + SUFFIX)) {
+      for (Path file : dir) {
+        Lease lease = read(file);
+        if (lease == null || held.containsKey(lease.id)) {
+          continue;
+        }
+        // On startup, leases owned by this node cannot be held by anyone anymore.
+        boolean ownedBeforeRestart = startup && cfg.getNodeId().equals(lease.owner);
+        if (ownedBeforeRestart || lease.expiresAt < now) {
+          orphaned.add(lease);
+        }
+      }
+    } catch (IOException e) {
+      log.error("Failed to list rename leases in {}", leasesDir, e);
+    }
+    return orphaned;
+  }
+
+  private void finish(Project.NameKey newProjectKey) throws IOException, ConfigInvalidException {
+    lockUnlockProject.unlock(newProjectKey);
+  }
+
+  @VisibleForTesting
+  void revert(Lease lease) throws Exception {
+    Project.NameKey oldProjectKey = Project.nameKey(lease.oldProject);
+    Project.NameKey newProjectKey = Project.nameKey(lease.newProject);
+    // steps that started are reverted even if they did not complete, reverting them is idempotent
+    Set<Step> steps = EnumSet.noneOf(Step.class);
+    steps.addAll(lease.started);
+    // the repository is only moved back if the move happened, whatever the journal says
+    boolean moved = exists(newProjectKey) && !exists(oldProjectKey);
+    if (moved) {
+      steps.add(Step.FILESYSTEM);
+    } else {
+      steps.remove(Step.FILESYSTEM);
+      steps.remove(Step.STORAGE);
+    }
+    Set<Change.Id> changeIds = dbHandler.getChangeIds(moved ? newProjectKey : oldProjectKey);
+    revertRenameProject.performRevert(
+        ImmutableList.copyOf(steps), changeIds, oldProjectKey, newProjectKey, NoopMonitor.INSTANCE);
+  }
+
+  private boolean exists(Project.NameKey key) throws IOException {
+    try {
+      repoManager.openRepository(key).close();
+      return true;
+    } catch (RepositoryNotFoundException e) {
+      return false;
+    }
+  }
+
+  private Lease read(Path file) {
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return gson.fromJson(reader, Lease.class);
+    } catch (IOException | RuntimeException e) {
+      log.error("Failed to read rename lease {}", file, e);
+      return null;
+    }
+  }
+
+  private void write(Lease lease) throws IOException {
+    synchronized (lease) {
+      if (lease.released) {
+        return;
+      }
+      lease.expiresAt =
+          System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cfg.getLeaseDuration());
+      byte[] content = gson.toJson(lease).getBytes(StandardCharsets.UTF_8);
+      Files.createDirectories(leasesDir);
+      Path tmp = Files.createTempFile(leasesDir, lease.id, ".tmp");
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        channel.write(ByteBuffer.wrap(content));
+        channel.force(true);
+      }
+      Files.move(tmp, file(lease.id), StandardCopyOption.ATOMIC_MOVE);
+      syncDirectory();
+    }
+  }
+
+  /** Makes the last move in the leases directory durable, where the platform supports it. */
+  private void syncDirectory() {
+    try (FileChannel dir = FileChannel.open(leasesDir, StandardOpenOption.READ)) {
+      dir.force(true);
+    } catch (IOException e) {
+      log.debug("Cannot sync directory {}", leasesDir, e);
+    }
+  }
+
+  private Path file(String id) {
+    return leasesDir.resolve(id + SUFFIX);
+  }
+
+  /** Lease on a rename, identified by the node holding it, with the journal of its steps. */
+  public static class Lease {
+    String id;
+    String owner;
+    String oldProject;
+    String newProject;
+    long expiresAt;
+    List<Step> started = new ArrayList<>();
+    List<Step> completed = new ArrayList<>();
+    boolean committed;
+    transient boolean released;
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Locks keyed on exact project names. A rename holds the locks of both its old and new names, so
+ * that unrelated renames run in parallel while renames sharing a name wait or are rejected.
+ *
+ * <p>All the names of a rename are locked at once, which prevents deadlocks between renames
+ * sharing several names. A thread may lock again the names it already holds.
+ */
+@Singleton
+public class RenameLocks {
+  private final Map<String, Thread> owners = new HashMap<>();
+  private final Configuration cfg;
+
+  @Inject
+  RenameLocks(Configuration cfg) {
+    this.cfg = cfg;
+  }
+
+  /**
+   * Locks the given project names, waiting at most the configured rename lock timeout.
+   *
+   * @return the held locks, to be released with {@link Held#release()}.
+   * @throws ResourceConflictException if another rename holds one of the names.
+   */
+  public Held acquire(Project.NameKey... projectKeys)
+      throws ResourceConflictException, InterruptedException {
+    Set<String> names = new LinkedHashSet<>();
+    for (Project.NameKey key : projectKeys) {
+      names.add(key.get());
+    }
+    Thread self = Thread.currentThread();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(cfg.getRenameLockTimeout());
+    synchronized (this) {
+      List<String> busy = heldByOthers(names, self);
+      while (!busy.isEmpty()) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new ResourceConflictException(
+              String.format(
+                  "Another rename involving %s is in progress", String.join(" or ", busy)));
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        busy = heldByOthers(names, self);
+      }
+      List<String> acquired = new ArrayList<>();
+      for (String name : names) {
+        if (owners.putIfAbsent(name, self) == null) {
+          acquired.add(name);
+        }
+      }
+      return new Held(acquired);
+    }
+  }
+
+  private List<String> heldByOthers(Set<String> names, Thread self) {
+    List<String> busy = new ArrayList<>();
+    for (String name : names) {
+      Thread owner = owners.get(name);
+      if (owner != null && owner != self) {
+        busy.add(name);
+      }
+    }
+    return busy;
+  }
+
+  private synchronized void unlock(List<String> names) {
+    names.forEach(owners::remove);
+    notifyAll();
+  }
+
+  /** Locks held by a rename. */
+  public class Held {
+    private final ImmutableList<String> acquired;
+
+    private Held(List<String> acquired) {
+      this.acquired = ImmutableList.copyOf(acquired);
+    }
+
+    public void release() {
+      unlock(acquired);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Strings;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.restapi.BadRequestException;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestModifyView;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.RenameNamespace.Input;
+import com.googlesource.gerrit.plugins.renameproject.monitor.NoopMonitor;
+import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+
+/**
+ * Renames every project under a namespace, e.g. {@code teamA/} to {@code org/teamA/}, as a single
+ * {@link BulkRenameProject bulk rename}.
+ */
+@Singleton
+public class RenameNamespace implements RestModifyView<ConfigResource, Input> {
+  static final String RENAME_NAMESPACE_ACTION = "rename-namespace";
+
+  public static class Input {
+    String namespace;
+    String newNamespace;
+    boolean continueWithRename;
+  }
+
+  private final ProjectCache projectCache;
+  private final BulkRenameProject bulkRenameProject;
+  private final RenameProject renameProject;
+
+  @Inject
+  RenameNamespace(
+      ProjectCache projectCache,
+      BulkRenameProject bulkRenameProject,
+      RenameProject renameProject) {
+    this.projectCache = projectCache;
+    this.bulkRenameProject = bulkRenameProject;
+    this.renameProject = renameProject;
+  }
+
+  @Override
+  public Response<Map<String, String>> apply(ConfigResource resource, Input input)
+      throws BadRequestException,
+          ResourceNotFoundException,
+          ResourceConflictException,
+          IOException,
+          InterruptedException,
+          ConfigInvalidException,
+          RenameRevertException {
+    if (input == null
+        || Strings.isNullOrEmpty(input.namespace)
+        || Strings.isNullOrEmpty(input.newNamespace)) {
+      throw new BadRequestException("Namespace and new namespace cannot be null or empty");
+    }
+    String namespace = asPrefix(input.namespace);
+    String newNamespace = asPrefix(input.newNamespace);
+    if (newNamespace.startsWith(namespace) || namespace.startsWith(newNamespace)) {
+      throw new BadRequestException(
+          String.format("Namespaces %s and %s cannot be nested", namespace, newNamespace));
+    }
+    Map<Project.NameKey, String> renames = plan(namespace, newNamespace);
+    if (renames.isEmpty()) {
+      throw new ResourceNotFoundException(
+          String.format("No project found in namespace %s", namespace));
+    }
+
+    ProgressMonitor progressMonitor = NoopMonitor.INSTANCE;
+    BulkRenameProject.Plan plan = bulkRenameProject.prepare(renames, progressMonitor);
+    if (!bulkRenameProject.execute(
+        plan,
+        !renameProject.exceedsWarningLimit(plan.getChangeCount()) || input.continueWithRename,
+        progressMonitor)) {
+      return Response.none();
+    }
+    Map<String, String> renamed = new LinkedHashMap<>();
+    renames.forEach((oldProjectKey, newName) -> renamed.put(oldProjectKey.get(), newName));
+    return Response.ok(renamed);
+  }
+
+  /** New names of the projects in the namespace, by old name. */
+  Map<Project.NameKey, String> plan(String namespace, String newNamespace) {
+    Map<Project.NameKey, String> renames = new LinkedHashMap<>();
+    for (Project.NameKey projectKey : projectCache.all()) {
+      String name = projectKey.get();
+      if (name.startsWith(namespace)) {
+        renames.put(projectKey, newNamespace + name.substring(namespace.length()));
+      }
+    }
+    return renames;
+  }
+
+  private static String asPrefix(String namespace) {
+    return CharMatcher.is('/').trimTrailingFrom(namespace) + "/";
+  }
+}
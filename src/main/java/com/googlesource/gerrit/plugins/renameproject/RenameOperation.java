@@ -0,0 +1,116 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.googlesource.gerrit.plugins.renameproject.RenameProject.Input;
+import com.googlesource.gerrit.plugins.renameproject.RenameProject.Step;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/** State of a single rename, so that concurrent renames do not share their revert plans. */
+public class RenameOperation {
+  private final String id;
+  private final Project.NameKey oldProjectKey;
+  private final Project.NameKey newProjectKey;
+  private final Input input;
+  private final Set<Change.Id> changeIds;
+  private final List<Step> stepsStarted = new ArrayList<>();
+  private final List<Step> stepsPerformed = new ArrayList<>();
+  private boolean cancelled;
+  private boolean cancellable = true;
+
+  RenameOperation(Project.NameKey oldProjectKey, Input input, Set<Change.Id> changeIds) {
+    this.id = UUID.randomUUID().toString();
+    this.oldProjectKey = oldProjectKey;
+    this.newProjectKey = Project.nameKey(input.name);
+    this.input = input;
+    this.changeIds = changeIds;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public Project.NameKey getOldProjectKey() {
+    return oldProjectKey;
+  }
+
+  public Project.NameKey getNewProjectKey() {
+    return newProjectKey;
+  }
+
+  Input getInput() {
+    return input;
+  }
+
+  public Set<Change.Id> getChangeIds() {
+    return changeIds;
+  }
+
+  synchronized void stepStarted(Step step) {
+    if (!stepsStarted.contains(step)) {
+      stepsStarted.add(step);
+    }
+  }
+
+  synchronized void stepPerformed(Step step) {
+    stepsPerformed.add(step);
+  }
+
+  /**
+   * Requests the rename to stop and be reverted.
+   *
+   * @return false if the rename reached a point where it cannot be reverted anymore
+   */
+  public synchronized boolean cancel() {
+    if (!cancellable) {
+      return false;
+    }
+    cancelled = true;
+    return true;
+  }
+
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Prevents the rename from being cancelled from now on.
+   *
+   * @return false if the rename was cancelled before
+   */
+  synchronized boolean disallowCancellation() {
+    cancellable = false;
+    return !cancelled;
+  }
+
+  /**
+   * Steps started so far, in the order they started, including those that failed or were
+   * interrupted partway. These are the steps to revert.
+   */
+  public synchronized List<Step> getStepsStarted() {
+    return ImmutableList.copyOf(stepsStarted);
+  }
+
+  /** Steps performed so far, in the order they completed. */
+  public synchronized List<Step> getStepsPerformed() {
+    return ImmutableList.copyOf(stepsPerformed);
+  }
+}
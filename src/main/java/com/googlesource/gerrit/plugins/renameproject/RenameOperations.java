@@ -0,0 +1,60 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Project;
+import com.google.inject.Singleton;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Renames running on this server, for their progress to be reported. */
+@Singleton
+public class RenameOperations {
+  private final Map<String, RenameOperation> running = new ConcurrentHashMap<>();
+
+  void register(RenameOperation op) {
+    running.put(op.getId(), op);
+  }
+
+  void unregister(RenameOperation op) {
+    running.remove(op.getId());
+  }
+
+  /** The running rename of the given project, if any. */
+  public Optional<RenameOperation> byOldProject(Project.NameKey oldProjectKey) {
+    return running.values().stream()
+        .filter(op -> op.getOldProjectKey().equals(oldProjectKey))
+        .findFirst();
+  }
+
+  /**
+   * The running rename of the given project, looked up by its old or new name since the old name
+   * stops resolving once the project cache is updated.
+   */
+  public Optional<RenameOperation> byProject(Project.NameKey projectKey) {
+    return running.values().stream()
+        .filter(
+            op ->
+                op.getOldProjectKey().equals(projectKey)
+                    || op.getNewProjectKey().equals(projectKey))
+        .findFirst();
+  }
+
+  public ImmutableList<RenameOperation> all() {
+    return ImmutableList.copyOf(running.values());
+  }
+}
@@ -0,0 +1,49 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+/** What a rename would involve, as returned by a dry run. */
+public class RenamePlan {
+  String project;
+  String newName;
+  int changeCount;
+  int watcherCount;
+  long repositorySize;
+  int replicaCount;
+  /** Estimated duration in seconds, from the renames completed on this server. */
+  Long estimatedSeconds;
+  /** Whether the rename needs to be confirmed with {@code continueWithRename}. */
+  boolean exceedsWarningLimit;
+
+  @Override
+  public String toString() {
+    return String.format(
+        "Rename of %s to %s:\n"
+            + "  changes:            %d\n"
+            + "  watchers:           %d\n"
+            + "  repository size:    %d bytes\n"
+            + "  replicas:           %d\n"
+            + "  estimated duration: %s\n"
+            + "  needs confirmation: %s\n",
+        project,
+        newName,
+        changeCount,
+        watcherCount,
+        repositorySize,
+        replicaCount,
+        estimatedSeconds == null ? "unknown" : estimatedSeconds + " s",
+        exceedsWarningLimit ? "yes" : "no");
+  }
+}
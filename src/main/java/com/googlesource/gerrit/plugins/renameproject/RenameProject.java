@@ -17,16 +17,20 @@ package com.googlesource.gerrit.plugins.renameproject;
 import static com.googlesource.gerrit.plugins.renameproject.Configuration.NO_CHANGE_LIMIT;
 import static com.googlesource.gerrit.plugins.renameproject.RenameOwnProjectCapability.RENAME_OWN_PROJECT;
 import static com.googlesource.gerrit.plugins.renameproject.RenameProjectCapability.RENAME_PROJECT;
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gerrit.entities.Change;
 import com.google.gerrit.entities.Change.Id;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.api.access.PluginPermission;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.registration.DynamicItem;
 import com.google.gerrit.extensions.restapi.AuthException;
 import com.google.gerrit.extensions.restapi.BadRequestException;
 import com.google.gerrit.extensions.restapi.ResourceConflictException;
@@ -36,6 +40,7 @@ import com.google.gerrit.server.CurrentUser;
 import com.google.gerrit.server.IdentifiedUser;
 import com.google.gerrit.server.config.GerritIsReplica;
 import com.google.gerrit.server.extensions.events.PluginEvent;
+import com.google.gerrit.server.git.WorkQueue;
 import com.google.gerrit.server.permissions.GlobalPermission;
 import com.google.gerrit.server.permissions.PermissionBackend;
 import com.google.gerrit.server.permissions.PermissionBackendException;
@@ -44,8 +49,9 @@ import com.google.gerrit.server.project.ProjectResource;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.renameproject.RenameProject.Input;
+import com.googlesource.gerrit.plugins.renameproject.cache.CacheInvalidation;
+import com.googlesource.gerrit.plugins.renameproject.cache.CacheInvalidationBroadcaster;
 import com.googlesource.gerrit.plugins.renameproject.cache.CacheRenameHandler;
 import com.googlesource.gerrit.plugins.renameproject.conditions.RenamePreconditions;
 import com.googlesource.gerrit.plugins.renameproject.database.DatabaseRenameHandler;
@@ -56,10 +62,17 @@ import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.http.auth.AuthenticationException;
 import org.eclipse.jgit.errors.ConfigInvalidException;
 import org.eclipse.jgit.transport.URIish;
@@ -67,7 +80,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Singleton
-public class RenameProject implements RestModifyView<ProjectResource, Input> {
+public class RenameProject implements RestModifyView<ProjectResource, Input>, LifecycleListener {
 
   @Override
   public Response<?> apply(ProjectResource resource, Input input)
@@ -81,11 +94,21 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
     ProgressMonitor progressMonitor = NoopMonitor.INSTANCE;
     assertCanRename(resource, input, progressMonitor);
     Set<Id> changeIds = getChanges(resource, progressMonitor);
+    if (input.dryRun) {
+      return Response.ok(plan(resource, input, changeIds));
+    }
+    if ((input.async || input.isScheduled()) && !isReplica) {
+      if (exceedsWarningLimit(changeIds.size()) && !input.continueWithRename) {
+        log.debug(CANCELLATION_MSG);
+        return Response.none();
+      }
+      return Response.withStatusCode(SC_ACCEPTED, queueRename(resource, input, changeIds));
+    }
     if (startRename(
         resource,
         input,
         progressMonitor,
-        (changeIds == null || changeIds.size() <= WARNING_LIMIT || input.continueWithRename),
+        (changeIds == null || !exceedsWarningLimit(changeIds.size()) || input.continueWithRename),
         changeIds)) {
       return Response.ok("");
     }
@@ -106,14 +129,10 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
           RenameRevertException,
           InterruptedException {
     if (!isReplica) {
-      if (cfg.getChangeLimit() != NO_CHANGE_LIMIT && changeIds.size() > cfg.getChangeLimit()) {
-        String errorMsg =
-            String.format(
-                "Project %s has %d change(s), which exceeds the allowed limit of %d",
-                resource.getName(), changeIds.size(), cfg.getChangeLimit());
-        throw new ResourceConflictException(errorMsg);
-      }
+      assertChangeLimit(resource, changeIds);
       if (continueRename) {
+        admission.assertNotBusy();
+        chargeQuota(resource);
         doRename(changeIds, resource, input, progressMonitor);
       } else {
         log.debug(CANCELLATION_MSG);
@@ -125,22 +144,136 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
     return true;
   }
 
+  /** Checks whether a rename of a project with that many changes must be confirmed first. */
+  boolean exceedsWarningLimit(int changeCount) {
+    if (cfg.getWarningDuration() > 0) {
+      Optional<Long> estimate = statistics.estimateSeconds(changeCount);
+      if (estimate.isPresent()) {
+        return estimate.get() > cfg.getWarningDuration();
+      }
+    }
+    return changeCount > WARNING_LIMIT;
+  }
+
+  /** Describes what renaming the project would involve, without renaming it. */
+  RenamePlan plan(ProjectResource resource, Input input, Set<Change.Id> changeIds)
+      throws IOException {
+    RenamePlan plan = new RenamePlan();
+    plan.project = resource.getName();
+    plan.newName = input.name;
+    plan.changeCount = changeIds.size();
+    plan.watcherCount = dbHandler.countWatchers(resource.getNameKey());
+    plan.repositorySize = fsHandler.getRepositorySize(resource.getNameKey());
+    plan.replicaCount = cfg.getUrls().size();
+    plan.estimatedSeconds = statistics.estimateSeconds(changeIds.size()).orElse(null);
+    plan.exceedsWarningLimit = exceedsWarningLimit(changeIds.size());
+    return plan;
+  }
+
+  /** Queues the rename to be run in the background by the {@link RenameJobQueue}. */
+  RenameJob queueRename(ProjectResource resource, Input input, Set<Change.Id> changeIds)
+      throws BadRequestException, ResourceConflictException, IOException {
+    assertChangeLimit(resource, changeIds);
+    chargeQuota(resource);
+    return jobQueue.submit(resource, input, changeIds.size());
+  }
+
+  private void chargeQuota(ProjectResource resource) throws RenameRejectedException {
+    chargeQuota(resource.getUser(), 1);
+  }
+
+  /**
+   * Counts the renames against the daily quota of the user, unless the user may rename any project.
+   */
+  void chargeQuota(CurrentUser user, int renames) throws RenameRejectedException {
+    if (!isAdmin()
+        && !getUserPermissions().testOrFalse(new PluginPermission(pluginName, RENAME_PROJECT))) {
+      admission.chargeQuota(user.asIdentifiedUser().getAccountId(), renames);
+    }
+  }
+
+  /** Runs a rename queued in the {@link RenameJobQueue}, checking its preconditions again. */
+  void renameNow(ProjectResource resource, Input input, ProgressMonitor progressMonitor)
+      throws ResourceConflictException,
+          BadRequestException,
+          AuthException,
+          IOException,
+          ConfigInvalidException,
+          RenameRevertException,
+          InterruptedException {
+    assertCanRename(resource, input, progressMonitor);
+    Set<Id> changeIds = getChanges(resource, progressMonitor);
+    // the job queue already checked the load and the quota of the user
+    assertChangeLimit(resource, changeIds);
+    doRename(changeIds, resource, input, progressMonitor);
+  }
+
+  void assertChangeLimit(ProjectResource resource, Set<Change.Id> changeIds)
+      throws ResourceConflictException {
+    if (cfg.getChangeLimit() != NO_CHANGE_LIMIT && changeIds.size() > cfg.getChangeLimit()) {
+      String errorMsg =
+          String.format(
+              "Project %s has %d change(s), which exceeds the allowed limit of %d",
+              resource.getName(), changeIds.size(), cfg.getChangeLimit());
+      throw new ResourceConflictException(errorMsg);
+    }
+  }
+
   public static class Input {
 
     String name;
     boolean continueWithRename;
+    String storageTier;
+    boolean async;
+    int priority;
+    boolean dryRun;
+    String notBefore;
+    boolean maintenanceWindow;
+    Integer indexThreads;
+    Long moveRate;
+    boolean backgroundReindex;
+    ReplicationMode replication;
+    boolean reparentChildren;
+
+    /** Whether the rename must be queued to start later rather than as soon as possible. */
+    boolean isScheduled() {
+      return notBefore != null || maintenanceWindow;
+    }
+
+    /** Whether the rename overrides the performance settings of the server. */
+    boolean hasPerformanceOverrides() {
+      return indexThreads != null || moveRate != null || backgroundReindex || isAsyncReplication();
+    }
+
+    boolean isAsyncReplication() {
+      return replication == ReplicationMode.ASYNC;
+    }
+  }
+
+  /** Whether the primary waits for the replicas to rename the project before returning. */
+  public enum ReplicationMode {
+    SYNC,
+    ASYNC
   }
 
   static final int WARNING_LIMIT = 5000;
+  static final String FILESYSTEM_STEP = "filesystem";
+  static final String CACHE_STEP = "cache";
+  static final String DATABASE_STEP = "database";
+  static final String INDEX_STEP = "index";
+  static final String REPARENT_STEP = "reparent";
+  static final String REPLICATION_STEP = "replication";
   static final String CANCELLATION_MSG =
       "Rename cancelled due to number of changes exceeding warning limit and user's will to not"
           + " continue";
 
   private static final Logger log = LoggerFactory.getLogger(RenameProject.class);
-  private static final String CACHE_NAME = "changeid_project";
   private static final String WITH_AUTHENTICATION = "a";
   public static final String RENAME_ACTION = "rename";
   public static final String PROJECTS_ENDPOINT = "projects";
+  static final String CONFIG_ENDPOINT = "config/server";
+  // the most steps a single rename runs at the same time
+  private static final int STEP_THREADS = 3;
 
   private final DatabaseRenameHandler dbHandler;
   private final FilesystemRenameHandler fsHandler;
@@ -154,14 +287,22 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
   private final RenameLog renameLog;
   private final boolean isReplica;
   private final PermissionBackend permissionBackend;
-  private final Cache<Change.Id, String> changeIdProjectCache;
   private final RevertRenameProject revertRenameProject;
+  private final DynamicItem<CacheInvalidationBroadcaster> cacheBroadcaster;
+  private final RenameLeaseManager leaseManager;
+  private final RenameLocks renameLocks;
+  private final RenameJobQueue jobQueue;
+  private final RenameOperations operations;
+  private final RenameStatistics statistics;
+  private final RenameAdmission admission;
+  private final WorkQueue workQueue;
+  private final ReparentChildProjects reparentChildProjects;
+  private volatile ScheduledExecutorService replicationQueue;
+  private volatile ScheduledExecutorService stepQueue;
   private SshHelper sshHelper;
   private HttpSession httpSession;
   private final Configuration cfg;
 
-  private List<Step> stepsPerformed;
-
   @Inject
   RenameProject(
       DatabaseRenameHandler dbHandler,
@@ -176,8 +317,16 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
       @GerritIsReplica Boolean isReplica,
       RenameLog renameLog,
       PermissionBackend permissionBackend,
-      @Named(CACHE_NAME) Cache<Change.Id, String> changeIdProjectCache,
       RevertRenameProject revertRenameProject,
+      DynamicItem<CacheInvalidationBroadcaster> cacheBroadcaster,
+      RenameLeaseManager leaseManager,
+      RenameLocks renameLocks,
+      RenameJobQueue jobQueue,
+      RenameOperations operations,
+      RenameStatistics statistics,
+      RenameAdmission admission,
+      WorkQueue workQueue,
+      ReparentChildProjects reparentChildProjects,
       SshHelper sshHelper,
       HttpSession httpSession,
       Configuration cfg) {
@@ -192,15 +341,45 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
     this.pluginName = pluginName;
     this.renameLog = renameLog;
     this.permissionBackend = permissionBackend;
-    this.changeIdProjectCache = changeIdProjectCache;
     this.revertRenameProject = revertRenameProject;
+    this.cacheBroadcaster = cacheBroadcaster;
+    this.leaseManager = leaseManager;
+    this.renameLocks = renameLocks;
+    this.jobQueue = jobQueue;
+    this.operations = operations;
+    this.statistics = statistics;
+    this.admission = admission;
+    this.workQueue = workQueue;
+    this.reparentChildProjects = reparentChildProjects;
     this.sshHelper = sshHelper;
     this.httpSession = httpSession;
     this.cfg = cfg;
-    this.stepsPerformed = new ArrayList<>();
     this.isReplica = isReplica;
   }
 
+  @Override
+  public void start() {
+    replicationQueue = workQueue.createQueue(cfg.getReplicationThreads(), "Rename-Replication");
+    stepQueue = workQueue.createQueue(STEP_THREADS, "Rename-Step");
+  }
+
+  @Override
+  public void stop() {
+    if (replicationQueue != null) {
+      replicationQueue.shutdownNow();
+      replicationQueue = null;
+    }
+    if (stepQueue != null) {
+      stepQueue.shutdownNow();
+      stepQueue = null;
+    }
+  }
+
+  /** Executor of the steps of a rename, which runs them one at a time unless they are parallel. */
+  Executor stepExecutor() {
+    return cfg.parallelSteps() ? stepQueue : MoreExecutors.newSequentialExecutor(stepQueue);
+  }
+
   private void assertNewNameNotNull(Input input) throws BadRequestException {
     if (input == null || Strings.isNullOrEmpty(input.name)) {
       throw new BadRequestException("Name of the repo cannot be null or empty");
@@ -215,6 +394,34 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
     }
   }
 
+  private void assertStorageTierExists(Input input) throws BadRequestException {
+    if (!Strings.isNullOrEmpty(input.storageTier)
+        && !cfg.getStorageTier(input.storageTier).isPresent()) {
+      throw new BadRequestException(
+          String.format("Storage tier %s is not configured", input.storageTier));
+    }
+  }
+
+  private void assertPerformanceOverrides(Input input) throws AuthException, BadRequestException {
+    if (!input.hasPerformanceOverrides()) {
+      return;
+    }
+    if (!isAdmin()) {
+      throw new AuthException("Not allowed to override the performance settings of a rename");
+    }
+    if (input.indexThreads != null
+        && (input.indexThreads < 1 || input.indexThreads > cfg.getMaxIndexThreads())) {
+      throw new BadRequestException(
+          String.format("indexThreads must be between 1 and %d", cfg.getMaxIndexThreads()));
+    }
+    if (input.moveRate != null && input.moveRate <= 0) {
+      throw new BadRequestException("moveRate must be a positive number of bytes per second");
+    }
+    if (input.backgroundReindex && !cfg.allowBackgroundReindex()) {
+      throw new BadRequestException("Background reindexing is not allowed on this server");
+    }
+  }
+
   private void assertRenamePermission(ProjectResource rsrc) throws AuthException {
     if ((isReplica && !isAdmin()) || !canRename(rsrc)) {
       throw new AuthException("Not allowed to rename project");
@@ -271,7 +478,17 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
       assertNewNameMatchesRegex(input);
       assertRenamePermission(rsrc);
       if (!isReplica) {
-        renamePreconditions.assertCanRename(rsrc, Project.nameKey(input.name));
+        assertStorageTierExists(input);
+        assertPerformanceOverrides(input);
+        if (input.priority > 0 && !isAdmin()) {
+          // the other users would otherwise get their renames ahead of everyone else's
+          throw new AuthException("Not allowed to raise the priority of a rename");
+        }
+        if (input.reparentChildren && !isAdmin()) {
+          throw new AuthException("Not allowed to reparent the child projects");
+        }
+        renamePreconditions.assertCanRename(
+            rsrc, Project.nameKey(input.name), input.reparentChildren);
       }
       log.debug("Rename preconditions check successful.");
     } catch (CannotRenameProjectException e) {
@@ -280,112 +497,335 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
   }
 
   void doRename(Set<Change.Id> changeIds, ProjectResource rsrc, Input input, ProgressMonitor pm)
-      throws InterruptedException, ConfigInvalidException, IOException, RenameRevertException {
-    Project.NameKey oldProjectKey = rsrc.getNameKey();
-    Project.NameKey newProjectKey = Project.nameKey(input.name);
+      throws InterruptedException,
+          ConfigInvalidException,
+          IOException,
+          RenameRevertException,
+          ResourceConflictException {
+    RenameOperation op = new RenameOperation(rsrc.getNameKey(), input, changeIds);
+    Project.NameKey oldProjectKey = op.getOldProjectKey();
+    Project.NameKey newProjectKey = op.getNewProjectKey();
+    // the steps run on threads without the request context of the caller
+    CurrentUser user = userProvider.get();
     Exception ex = null;
-    stepsPerformed.clear();
+    RenameLeaseManager.Lease lease = null;
+    long startNanos = System.nanoTime();
+    operations.register(op);
+    RenameLocks.Held locks = null;
     try {
-      lockUnlockProject.lock(oldProjectKey);
-      fsRenameStep(oldProjectKey, newProjectKey, pm);
-      cacheRenameStep(oldProjectKey, newProjectKey);
-      dbRenameStep(oldProjectKey, newProjectKey, pm);
-      // if the DB update is successful, update the secondary index
-      indexRenameStep(changeIds, oldProjectKey, newProjectKey, pm);
-      // flush old changeId -> Project cache for given changeIds
-      changeIdProjectCache.invalidateAll(changeIds);
-      pluginEvent.fire(pluginName, pluginName, oldProjectKey.get() + ":" + newProjectKey.get());
-      // replicate rename-project operation to other replica instances
-      replicateRename(input, oldProjectKey, pm);
-      // no need to revert this since newProjectKey will be removed from project cache before
-      lockUnlockProject.unlock(newProjectKey);
-      log.debug("Unlocked the repo {} after rename operation.", newProjectKey.get());
-    } catch (Exception e) {
-      if (stepsPerformed.isEmpty()) {
-        log.error("Renaming procedure failed. Exception caught: {}", e.toString());
-      } else {
-        log.error(
-            "Renaming procedure failed, last successful step {}. Exception caught: {}",
-            stepsPerformed.get(stepsPerformed.size() - 1).toString(),
-            e.toString());
-      }
+      locks = renameLocks.acquire(oldProjectKey, newProjectKey);
       try {
-        revertRenameProject.performRevert(
-            stepsPerformed, changeIds, oldProjectKey, newProjectKey, pm);
-      } catch (Exception revertEx) {
-        log.error(
-            "Failed to revert renaming procedure for {}. Exception caught: {}",
-            oldProjectKey.get(),
-            revertEx.toString());
-        ex = revertEx;
-        throw new RenameRevertException(revertEx, e);
+        lease = leaseManager.acquire(op);
+        lockUnlockProject.lock(oldProjectKey);
+        try (StepScheduler steps =
+            new StepScheduler(stepExecutor(), op::isCancelled, cfg::getStepTimeout)) {
+          steps.add(
+              FILESYSTEM_STEP,
+              () -> {
+                fsRenameStep(op, pm);
+                warmUpRepository(newProjectKey, pm);
+              });
+          steps.add(CACHE_STEP, () -> cacheRenameStep(op), FILESYSTEM_STEP);
+          if (input.reparentChildren) {
+            // the children must not point to a project missing from the cache
+            steps.add(
+                REPARENT_STEP,
+                () -> reparentStep(op, cfg.parallelSteps() ? NoopMonitor.INSTANCE : pm),
+                CACHE_STEP);
+          }
+          if (cfg.parallelSteps()) {
+            if (!input.backgroundReindex) {
+              // reindexing loads the project, which must not be cached as missing anymore
+              steps.add(INDEX_STEP, () -> indexRenameStep(op, pm), CACHE_STEP);
+            }
+            steps
+                .add("project warm-up", () -> warmUpProjectCache(newProjectKey, user), CACHE_STEP)
+                // only the index reports progress, concurrent tasks would overwrite each other
+                .add(DATABASE_STEP, () -> dbRenameStep(op, NoopMonitor.INSTANCE), FILESYSTEM_STEP);
+          } else {
+            steps.add(DATABASE_STEP, () -> dbRenameStep(op, pm), CACHE_STEP);
+            String lastStep = DATABASE_STEP;
+            if (!input.backgroundReindex) {
+              // if the DB update is successful, update the secondary index
+              steps.add(INDEX_STEP, () -> indexRenameStep(op, pm), DATABASE_STEP);
+              lastStep = INDEX_STEP;
+            }
+            steps.add("project warm-up", () -> warmUpProjectCache(newProjectKey, user), lastStep);
+          }
+          steps.run();
+          // the peers, the listeners and the replicas cannot be reverted, so the rename cannot be
+          // cancelled from now on
+          if (!op.disallowCancellation()) {
+            throw new ResourceConflictException("The rename was cancelled");
+          }
+          leaseManager.committed(op);
+          // point the changeId -> Project cache entries of given changeIds to the new project
+          if (input.backgroundReindex) {
+            // the index still has the changes under the old name, it is read after the reindex
+            cacheHandler.rewriteChangeIdProjects(changeIds, newProjectKey);
+          } else {
+            cacheHandler.updateChangeIdProjects(changeIds, newProjectKey);
+          }
+          broadcastCacheInvalidation(oldProjectKey, newProjectKey, changeIds);
+          pluginEvent.fire(
+              pluginName, pluginName, oldProjectKey.get() + ":" + newProjectKey.get());
+          // replicate rename-project operation to other replica instances
+          if (input.isAsyncReplication()) {
+            @SuppressWarnings("unused")
+            Future<?> possiblyIgnoredError =
+                workQueue
+                    .getDefaultQueue()
+                    .submit(() -> replicateRename(input, oldProjectKey, NoopMonitor.INSTANCE));
+          } else {
+            replicateWithTimeout(
+                steps,
+                () -> replicateRename(input, oldProjectKey, pm),
+                "the rename of " + oldProjectKey.get());
+          }
+        }
+        // no need to revert this since newProjectKey will be removed from project cache before
+        lockUnlockProject.unlock(newProjectKey);
+        log.debug("Unlocked the repo {} after rename operation.", newProjectKey.get());
+        leaseManager.release(lease);
+        if (input.backgroundReindex) {
+          reindexInBackground(op);
+        }
+        statistics.record(
+            changeIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+      } catch (Exception e) {
+        List<Step> stepsPerformed = op.getStepsPerformed();
+        if (stepsPerformed.isEmpty()) {
+          log.error("Renaming procedure failed. Exception caught: {}", e.toString());
+        } else {
+          log.error(
+              "Renaming procedure failed, last successful step {}. Exception caught: {}",
+              stepsPerformed.get(stepsPerformed.size() - 1).toString(),
+              e.toString());
+        }
+        try {
+          revertRenameProject.performRevert(
+              op.getStepsStarted(), changeIds, oldProjectKey, newProjectKey, pm);
+        } catch (Exception revertEx) {
+          log.error(
+              "Failed to revert renaming procedure for {}. Exception caught: {}",
+              oldProjectKey.get(),
+              revertEx.toString());
+          if (lease != null) {
+            // let the lease expire so that the rename is recovered later
+            leaseManager.abandon(lease);
+          }
+          ex = revertEx;
+          throw new RenameRevertException(revertEx, e);
+        }
+        if (lease != null) {
+          leaseManager.release(lease);
+        }
+        ex = e;
+        throw e;
       }
-      ex = e;
-      throw e;
     } finally {
-      renameLog.onRename((IdentifiedUser) userProvider.get(), oldProjectKey, input, ex);
+      if (locks != null) {
+        locks.release();
+      }
+      operations.unregister(op);
+      renameLog.onRename((IdentifiedUser) user, oldProjectKey, input, ex);
     }
   }
 
-  void doRenameReplica(ProjectResource rsrc, Input input) throws IOException {
-    Project.NameKey oldProjectKey = rsrc.getNameKey();
-    Project.NameKey newProjectKey = Project.nameKey(input.name);
+  void doRenameReplica(ProjectResource rsrc, Input input)
+      throws IOException, ResourceConflictException, InterruptedException {
+    doRenameReplica(new RenameOperation(rsrc.getNameKey(), input, ImmutableSet.of()));
+  }
+
+  void doRenameReplica(RenameOperation op)
+      throws IOException, ResourceConflictException, InterruptedException {
+    Input input = op.getInput();
     Exception ex = null;
+    RenameLocks.Held locks = null;
     try {
-      fsRenameStep(oldProjectKey, newProjectKey, NoopMonitor.INSTANCE);
+      locks = renameLocks.acquire(op.getOldProjectKey(), op.getNewProjectKey());
+      fsRenameStep(op, NoopMonitor.INSTANCE);
+      warmUpRepository(op.getNewProjectKey(), NoopMonitor.INSTANCE);
     } catch (Exception e) {
       log.error("Renaming procedure failed on replica", e);
       ex = e;
       throw e;
     } finally {
-      renameLog.onRename((IdentifiedUser) userProvider.get(), oldProjectKey, input, ex);
+      if (locks != null) {
+        locks.release();
+      }
+      renameLog.onRename((IdentifiedUser) userProvider.get(), op.getOldProjectKey(), input, ex);
     }
   }
 
-  void fsRenameStep(
-      Project.NameKey oldProjectKey, Project.NameKey newProjectKey, ProgressMonitor pm)
-      throws IOException {
-    fsHandler.rename(oldProjectKey, newProjectKey, pm);
-    logPerformedStep(Step.FILESYSTEM, newProjectKey, oldProjectKey);
+  void fsRenameStep(RenameOperation op, ProgressMonitor pm) throws IOException {
+    Project.NameKey oldProjectKey = op.getOldProjectKey();
+    Project.NameKey newProjectKey = op.getNewProjectKey();
+    String storageTier = op.getInput().storageTier;
+    Optional<Path> tierBasePath =
+        Strings.isNullOrEmpty(storageTier) ? Optional.empty() : cfg.getStorageTier(storageTier);
+    if (!Strings.isNullOrEmpty(storageTier) && !tierBasePath.isPresent()) {
+      log.warn(
+          "Storage tier {} is not configured, renaming {} in place",
+          storageTier,
+          oldProjectKey.get());
+    }
+    if (tierBasePath.isPresent()) {
+      logStartedStep(op, Step.STORAGE);
+      logStartedStep(op, Step.FILESYSTEM);
+      Long moveRate = op.getInput().moveRate;
+      fsHandler.moveToStorageTier(
+          oldProjectKey, newProjectKey, tierBasePath.get(), moveRate == null ? 0 : moveRate, pm);
+      lockUnlockProject.moveLock(oldProjectKey, newProjectKey);
+      logPerformedStep(op, Step.FILESYSTEM);
+      logPerformedStep(op, Step.STORAGE);
+    } else {
+      logStartedStep(op, Step.FILESYSTEM);
+      fsHandler.rename(oldProjectKey, newProjectKey, pm);
+      lockUnlockProject.moveLock(oldProjectKey, newProjectKey);
+      logPerformedStep(op, Step.FILESYSTEM);
+    }
   }
 
-  void cacheRenameStep(Project.NameKey oldProjectKey, Project.NameKey newProjectKey)
-      throws IOException {
-    cacheHandler.update(oldProjectKey, newProjectKey);
-    logPerformedStep(Step.CACHE, newProjectKey, oldProjectKey);
+  void warmUpRepository(Project.NameKey newProjectKey, ProgressMonitor pm) {
+    if (cfg.warmUpRepository()) {
+      fsHandler.warmUp(newProjectKey, pm);
+    }
+  }
+
+  void cacheRenameStep(RenameOperation op) throws IOException {
+    logStartedStep(op, Step.CACHE);
+    cacheHandler.update(op.getOldProjectKey(), op.getNewProjectKey());
+    logPerformedStep(op, Step.CACHE);
+  }
+
+  private void warmUpProjectCache(Project.NameKey newProjectKey, CurrentUser user) {
+    if (!cfg.warmUpProjectCache()) {
+      return;
+    }
+    try {
+      cacheHandler.warmUp(newProjectKey, user);
+    } catch (RuntimeException e) {
+      log.warn("Failed to warm up project cache for {}", newProjectKey.get(), e);
+    }
   }
 
-  void dbRenameStep(
-      Project.NameKey oldProjectKey, Project.NameKey newProjectKey, ProgressMonitor pm)
+  /** Replicates with the timeout of the replication step, only logging when it is exceeded. */
+  void replicateWithTimeout(
+      StepScheduler steps, StepScheduler.Action replication, String description)
+      throws IOException,
+          ConfigInvalidException,
+          RenameRevertException,
+          InterruptedException {
+    try {
+      steps.add(REPLICATION_STEP, replication).run();
+    } catch (ResourceConflictException e) {
+      log.error("Replication of {} did not complete: {}", description, e.getMessage());
+    }
+  }
+
+  void broadcastCacheInvalidation(
+      Project.NameKey oldProjectKey, Project.NameKey newProjectKey, Set<Change.Id> changeIds) {
+    try {
+      cacheBroadcaster
+          .get()
+          .broadcast(
+              new CacheInvalidation(cfg.getNodeId(), oldProjectKey, newProjectKey, changeIds));
+    } catch (IOException e) {
+      log.error("Failed to broadcast cache invalidation for {}", oldProjectKey.get(), e);
+    }
+  }
+
+  void reparentStep(RenameOperation op, ProgressMonitor pm)
+      throws IOException, ConfigInvalidException {
+    logStartedStep(op, Step.REPARENT);
+    reparentChildProjects.reparent(op.getOldProjectKey(), op.getNewProjectKey(), pm);
+    logPerformedStep(op, Step.REPARENT);
+  }
+
+  void dbRenameStep(RenameOperation op, ProgressMonitor pm)
       throws IOException, ConfigInvalidException, RenameRevertException {
-    dbHandler.updateWatchEntriesWithRollback(oldProjectKey, newProjectKey, pm);
-    logPerformedStep(Step.DATABASE, newProjectKey, oldProjectKey);
+    logStartedStep(op, Step.DATABASE);
+    dbHandler.updateWatchEntriesWithRollback(op.getOldProjectKey(), op.getNewProjectKey(), pm);
+    logPerformedStep(op, Step.DATABASE);
   }
 
-  void indexRenameStep(
-      Set<Change.Id> changeIds,
-      Project.NameKey oldProjectKey,
-      Project.NameKey newProjectKey,
-      ProgressMonitor pm)
-      throws InterruptedException {
-    indexHandler.updateIndex(changeIds, newProjectKey, pm);
-    logPerformedStep(Step.INDEX, newProjectKey, oldProjectKey);
+  void indexRenameStep(RenameOperation op, ProgressMonitor pm)
+      throws IOException, InterruptedException {
+    logStartedStep(op, Step.INDEX);
+    indexHandler.updateIndex(
+        op.getChangeIds(), op.getNewProjectKey(), getIndexThreads(op.getInput()), pm);
+    logPerformedStep(op, Step.INDEX);
+  }
+
+  private int getIndexThreads(Input input) {
+    if (input.indexThreads == null) {
+      return cfg.getIndexThreads();
+    }
+    // the limit may have been lowered since the rename was requested
+    return Math.min(input.indexThreads, cfg.getMaxIndexThreads());
+  }
+
+  /** Reindexes the changes of a committed rename once the project has been unlocked. */
+  private void reindexInBackground(RenameOperation op) {
+    Project.NameKey newProjectKey = op.getNewProjectKey();
+    @SuppressWarnings("unused")
+    Future<?> possiblyIgnoredError =
+        workQueue
+            .getDefaultQueue()
+            .submit(
+                () -> {
+                  try {
+                    indexHandler.updateIndex(
+                        op.getChangeIds(),
+                        newProjectKey,
+                        getIndexThreads(op.getInput()),
+                        NoopMonitor.INSTANCE);
+                    log.debug("Reindexed the changes of {} in background.", newProjectKey.get());
+                    cacheHandler.updateChangeIdProjects(op.getChangeIds(), newProjectKey);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.error(
+                        "Background reindexing of {} was interrupted, its changes must be"
+                            + " reindexed manually",
+                        newProjectKey.get());
+                  } catch (RuntimeException e) {
+                    log.error(
+                        "Background reindexing of {} failed, its changes must be reindexed"
+                            + " manually",
+                        newProjectKey.get(),
+                        e);
+                  }
+                });
   }
 
   enum Step {
     FILESYSTEM,
+    STORAGE,
     CACHE,
     DATABASE,
-    INDEX
+    INDEX,
+    REPARENT
   }
 
-  private void logPerformedStep(
-      Step step, Project.NameKey newProjectKey, Project.NameKey oldProjectKey) {
-    stepsPerformed.add(step);
+  /** Records a step before it starts, so that it is reverted even if it only partly completes. */
+  void logStartedStep(RenameOperation op, Step step) throws IOException {
+    op.stepStarted(step);
+    leaseManager.stepStarted(op, step);
+  }
+
+  void logPerformedStep(RenameOperation op, Step step) {
+    op.stepPerformed(step);
+    leaseManager.stepCompleted(op, step);
+    Project.NameKey oldProjectKey = op.getOldProjectKey();
+    Project.NameKey newProjectKey = op.getNewProjectKey();
     switch (step) {
       case FILESYSTEM:
         log.debug("Renamed the git repo to {} successfully.", newProjectKey.get());
         break;
+      case STORAGE:
+        log.debug("Moved the git repo {} to its storage tier successfully.", newProjectKey.get());
+        break;
       case CACHE:
         log.debug("Successfully updated project cache for project {}.", newProjectKey.get());
         break;
@@ -394,14 +834,12 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
         break;
       case INDEX:
         log.debug("Updated the secondary index successfully for project {}.", oldProjectKey.get());
+        break;
+      case REPARENT:
+        log.debug("Reparented the child projects to {} successfully.", newProjectKey.get());
     }
   }
 
-  @VisibleForTesting
-  List<Step> getStepsPerformed() {
-    return stepsPerformed;
-  }
-
   Set<Change.Id> getChanges(ProjectResource rsrc, ProgressMonitor pm) throws IOException {
     pm.beginTask("Retrieving changes from DB");
     Project.NameKey oldProjectKey = rsrc.getNameKey();
@@ -409,30 +847,116 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
   }
 
   void replicateRename(Input input, Project.NameKey oldProjectKey, ProgressMonitor pm) {
-    pm.beginTask(
-        String.format("Replicating the rename of %s to %s", oldProjectKey.get(), input.name));
+    replicate(
+        String.format("the rename of %s to %s", oldProjectKey.get(), input.name),
+        url -> {
+          if (url.matches("http(.*)")) {
+            httpReplicateRename(input, oldProjectKey, url);
+          }
+          if (url.matches("ssh(.*)")) {
+            sshReplicateRename(input, oldProjectKey, url);
+          }
+        },
+        pm);
+  }
 
+  /** Replicates the renames of a bulk operation to each replica in a single request. */
+  void replicateBulkRename(List<RenameOperation> ops, ProgressMonitor pm) {
+    replicate(
+        String.format("the rename of %d project(s)", ops.size()),
+        url -> {
+          if (url.matches("http(.*)")) {
+            httpReplicateBulkRename(ops, url);
+          }
+          if (url.matches("ssh(.*)")) {
+            sshReplicateBulkRename(ops, url);
+          }
+        },
+        pm);
+  }
+
+  /**
+   * Sends the request to all the replicas concurrently, each replica being retried on its own, so
+   * that a slow or unreachable replica does not delay the others.
+   */
+  private void replicate(String description, ReplicaRequest request, ProgressMonitor pm) {
     Set<String> urls = cfg.getUrls();
+    pm.beginTask("Replicating " + description, urls.size());
+    if (urls.isEmpty()) {
+      return;
+    }
     int nbRetries = cfg.getRenameReplicationRetries();
-
-    for (int i = 0; i < nbRetries && urls.size() > 0; ++i) {
-      urls = tryRenameReplication(urls, input, oldProjectKey);
+    ScheduledExecutorService executor = replicationQueue;
+    Map<String, Future<Boolean>> replications = new LinkedHashMap<>();
+    try {
+      for (String url : urls) {
+        replications.put(
+            url, executor.submit(() -> replicateTo(url, nbRetries, description, request)));
+      }
+      for (Map.Entry<String, Future<Boolean>> replication : replications.entrySet()) {
+        try {
+          if (!replication.getValue().get()) {
+            log.error(
+                "Failed to replicate {} on {} during {} attempts",
+                description,
+                replication.getKey(),
+                nbRetries);
+          }
+        } catch (ExecutionException e) {
+          log.error(
+              "Failed to replicate {} on {}", description, replication.getKey(), e.getCause());
+        }
+        pm.update(1);
+      }
+    } catch (InterruptedException e) {
+      // the replication step timed out or the rename is shutting down
+      log.error("Replication of {} interrupted", description);
+      Thread.currentThread().interrupt();
+    } finally {
+      replications.values().forEach(replication -> replication.cancel(true));
     }
-    for (String url : urls) {
-      log.error(
-          "Failed to replicate the renaming of {} to {} on {} during {} attempts",
-          oldProjectKey.get(),
-          input.name,
-          url,
-          cfg.getUrls());
+  }
+
+  private boolean replicateTo(
+      String url, int nbRetries, String description, ReplicaRequest request) {
+    for (int i = 0; i < nbRetries && !Thread.currentThread().isInterrupted(); ++i) {
+      try {
+        request.send(url);
+        return true;
+      } catch (AuthenticationException
+          | IOException
+          | URISyntaxException
+          | RenameReplicationException e) {
+        log.info("Rescheduling the replication of {} for retry on {}", description, url, e);
+      }
     }
+    return false;
   }
 
   void sshReplicateRename(Input input, Project.NameKey oldProjectKey, String url)
       throws RenameReplicationException, URISyntaxException, IOException {
+    String cmd = pluginName;
+    if (!Strings.isNullOrEmpty(input.storageTier)) {
+      cmd += " --storage-tier " + input.storageTier;
+    }
+    cmd += " " + oldProjectKey.get() + " " + input.name;
+    executeRemoteSsh(url, cmd);
+  }
+
+  void sshReplicateBulkRename(List<RenameOperation> ops, String url)
+      throws RenameReplicationException, URISyntaxException, IOException {
+    StringBuilder cmd = new StringBuilder(pluginName);
+    for (RenameOperation op : ops) {
+      cmd.append(' ').append(op.getOldProjectKey().get());
+      cmd.append(' ').append(op.getNewProjectKey().get());
+    }
+    executeRemoteSsh(url, cmd.toString());
+  }
+
+  private void executeRemoteSsh(String url, String cmd)
+      throws RenameReplicationException, URISyntaxException, IOException {
     OutputStream errStream = sshHelper.newErrorBufferStream();
-    sshHelper.executeRemoteSsh(
-        new URIish(url), pluginName + " " + oldProjectKey.get() + " " + input.name, errStream);
+    sshHelper.executeRemoteSsh(new URIish(url), cmd, errStream);
     String errorMessage = errStream.toString();
     if (!errorMessage.isEmpty()) {
       throw new RenameReplicationException(errorMessage);
@@ -456,29 +980,32 @@ public class RenameProject implements RestModifyView<ProjectResource, Input> {
     }
   }
 
-  private Set<String> tryRenameReplication(
-      Set<String> replicas, Input input, Project.NameKey oldProjectKey) {
-    Set<String> failedReplicas = new HashSet<>();
-    for (String url : replicas) {
-      try {
-        if (url.matches("http(.*)")) {
-          httpReplicateRename(input, oldProjectKey, url);
-        }
-        if (url.matches("ssh(.*)")) {
-          sshReplicateRename(input, oldProjectKey, url);
-        }
-      } catch (AuthenticationException
-          | IOException
-          | URISyntaxException
-          | RenameReplicationException e) {
-        log.info(
-            "Rescheduling a rename replication for retry for {} on project {}",
-            url,
-            oldProjectKey.get());
-        e.printStackTrace();
-        failedReplicas.add(url);
-      }
+  void httpReplicateBulkRename(List<RenameOperation> ops, String url)
+      throws AuthenticationException, IOException, RenameReplicationException {
+    BulkRenameProject.Input input = new BulkRenameProject.Input();
+    input.renames = new LinkedHashMap<>();
+    for (RenameOperation op : ops) {
+      input.renames.put(op.getOldProjectKey().get(), op.getNewProjectKey().get());
     }
-    return failedReplicas;
+    String request =
+        Joiner.on("/")
+            .join(
+                url,
+                WITH_AUTHENTICATION,
+                CONFIG_ENDPOINT,
+                pluginName + "~" + BulkRenameProject.BULK_RENAME_ACTION);
+    HttpResponseHandler.HttpResult result = httpSession.post(request, input);
+    if (!result.isSuccessful()) {
+      throw new RenameReplicationException(
+          String.format("Unable to replicate bulk rename to %s : %s", url, result.getMessage()));
+    }
+  }
+
+  private interface ReplicaRequest {
+    void send(String url)
+        throws AuthenticationException,
+            IOException,
+            URISyntaxException,
+            RenameReplicationException;
   }
 }
@@ -22,6 +22,7 @@ import com.google.gerrit.extensions.restapi.*;
 import com.google.gerrit.httpd.AllRequestFilter;
 import com.google.gerrit.httpd.restapi.RestApiServlet;
 import com.google.gerrit.json.OutputFormat;
+import com.google.gerrit.server.config.ConfigResource;
 import com.google.gerrit.server.permissions.PermissionBackendException;
 import com.google.gerrit.server.project.ProjectResource;
 import com.google.gerrit.server.restapi.project.ProjectsCollection;
@@ -51,6 +52,7 @@ public class RenameProjectFilter extends AllRequestFilter {
 
   private final String pluginName;
   private RenameProject renameProject;
+  private BulkRenameProject bulkRenameProject;
   private Gson gson;
   private ProjectsCollection projectsCollection;
 
@@ -58,10 +60,12 @@ public class RenameProjectFilter extends AllRequestFilter {
   public RenameProjectFilter(
       @PluginName String pluginName,
       ProjectsCollection projectsCollection,
-      RenameProject renameProject) {
+      RenameProject renameProject,
+      BulkRenameProject bulkRenameProject) {
     this.pluginName = pluginName;
     this.projectsCollection = projectsCollection;
     this.renameProject = renameProject;
+    this.bulkRenameProject = bulkRenameProject;
     this.gson = OutputFormat.JSON.newGsonBuilder().create();
   }
 
@@ -76,9 +80,13 @@ public class RenameProjectFilter extends AllRequestFilter {
     HttpServletResponse httpResponse = (HttpServletResponse) response;
     HttpServletRequest httpRequest = (HttpServletRequest) request;
 
-    if (isRenameAction(httpRequest)) {
+    if (isRenameAction(httpRequest) || isBulkRenameAction(httpRequest)) {
       try {
-        writeResponse(httpResponse, renameProject(httpRequest));
+        writeResponse(
+            httpResponse,
+            isRenameAction(httpRequest)
+                ? renameProject(httpRequest)
+                : bulkRenameProject(httpRequest));
       } catch (RestApiException
           | PermissionBackendException
           | ConfigInvalidException
@@ -110,6 +118,24 @@ public class RenameProjectFilter extends AllRequestFilter {
     return httpRequest.getRequestURI().endsWith(String.format("/%s~rename", pluginName));
   }
 
+  private boolean isBulkRenameAction(HttpServletRequest httpRequest) {
+    return httpRequest
+        .getRequestURI()
+        .endsWith(String.format("/%s~%s", pluginName, BulkRenameProject.BULK_RENAME_ACTION));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Response<String> bulkRenameProject(HttpServletRequest httpRequest)
+      throws RestApiException,
+          IOException,
+          ConfigInvalidException,
+          RenameRevertException,
+          InterruptedException {
+    BulkRenameProject.Input input =
+        readJson(httpRequest, TypeLiteral.get(BulkRenameProject.Input.class));
+    return (Response<String>) bulkRenameProject.apply(new ConfigResource(), input);
+  }
+
   private Response<String> renameProject(HttpServletRequest httpRequest)
       throws RestApiException,
           IOException,
@@ -0,0 +1,26 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+
+/** Thrown when a rename cannot start now, but may be retried later. */
+public class RenameRejectedException extends ResourceConflictException {
+  private static final long serialVersionUID = 1L;
+
+  public RenameRejectedException(String reason, long retryAfterSeconds) {
+    super(String.format("%s, retry after %d seconds", reason, retryAfterSeconds));
+  }
+}
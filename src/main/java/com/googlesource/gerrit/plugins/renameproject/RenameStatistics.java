@@ -0,0 +1,106 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.json.OutputFormat;
+import com.google.gson.Gson;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Throughput of the renames completed on this server, used to estimate how long a rename will
+ * take.
+ *
+ * <p>The cost of a rename is modelled as one unit of work per change plus one for the repository,
+ * and the time per unit is a moving average favouring the latest renames.
+ */
+@Singleton
+public class RenameStatistics {
+  private static final Logger log = LoggerFactory.getLogger(RenameStatistics.class);
+  private static final String FILE = "statistics.json";
+  /** Weight of the latest rename in the moving average. */
+  private static final double WEIGHT = 0.3;
+
+  static class Stats {
+    long renames;
+    double millisPerUnit;
+  }
+
+  private final Path file;
+  private final Gson gson = OutputFormat.JSON_COMPACT.newGson();
+  private Stats stats;
+
+  @Inject
+  RenameStatistics(@PluginData Path pluginData) {
+    this.file = pluginData.resolve(FILE);
+  }
+
+  /** Records a completed rename of a project with the given number of changes. */
+  public synchronized void record(int changeCount, long millis) {
+    Stats s = load();
+    double millisPerUnit = (double) millis / (changeCount + 1);
+    s.millisPerUnit =
+        s.renames == 0 ? millisPerUnit : WEIGHT * millisPerUnit + (1 - WEIGHT) * s.millisPerUnit;
+    s.renames++;
+    save(s);
+  }
+
+  /** Estimated duration of the rename of a project, unknown until a rename completed. */
+  public synchronized Optional<Long> estimateSeconds(int changeCount) {
+    Stats s = load();
+    if (s.renames == 0) {
+      return Optional.empty();
+    }
+    return Optional.of(Math.round(s.millisPerUnit * (changeCount + 1) / 1000));
+  }
+
+  private Stats load() {
+    if (stats == null) {
+      stats = new Stats();
+      if (Files.exists(file)) {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+          Stats loaded = gson.fromJson(reader, Stats.class);
+          if (loaded != null) {
+            stats = loaded;
+          }
+        } catch (IOException | RuntimeException e) {
+          log.warn("Failed to load rename statistics from {}, starting over", file, e);
+        }
+      }
+    }
+    return stats;
+  }
+
+  private void save(Stats s) {
+    try {
+      Files.createDirectories(file.getParent());
+      Path tmp = Files.createTempFile(file.getParent(), FILE, ".tmp");
+      Files.write(tmp, gson.toJson(s).getBytes(StandardCharsets.UTF_8));
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Failed to save rename statistics to {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.meta.MetaDataUpdate;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectConfig;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.cache.ChildProjectIndex;
+import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
+import java.io.IOException;
+import java.util.List;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Points the child projects of a renamed project to its new name. */
+@Singleton
+public class ReparentChildProjects {
+  private static final Logger log = LoggerFactory.getLogger(ReparentChildProjects.class);
+
+  private final MetaDataUpdate.Server metaDataUpdateFactory;
+  private final ProjectCache projectCache;
+  private final ProjectConfig.Factory projectConfigFactory;
+  private final ChildProjectIndex childProjectIndex;
+
+  @Inject
+  ReparentChildProjects(
+      MetaDataUpdate.Server metaDataUpdateFactory,
+      ProjectCache projectCache,
+      ProjectConfig.Factory projectConfigFactory,
+      ChildProjectIndex childProjectIndex) {
+    this.metaDataUpdateFactory = metaDataUpdateFactory;
+    this.projectCache = projectCache;
+    this.projectConfigFactory = projectConfigFactory;
+    this.childProjectIndex = childProjectIndex;
+  }
+
+  /**
+   * Rewrites the parent of every child of {@code oldParentKey} to {@code newParentKey}. The project
+   * cache entries of the children are refreshed once all of them are rewritten, rather than after
+   * each commit.
+   *
+   * @return the number of reparented projects
+   */
+  public int reparent(
+      Project.NameKey oldParentKey, Project.NameKey newParentKey, ProgressMonitor pm)
+      throws IOException, ConfigInvalidException {
+    List<Project.NameKey> children = childProjectIndex.getChildren(oldParentKey);
+    pm.beginTask("Reparenting child projects", children.size());
+    try {
+      for (Project.NameKey child : children) {
+        try (MetaDataUpdate md = metaDataUpdateFactory.create(child)) {
+          ProjectConfig projectConfig = projectConfigFactory.read(md);
+          projectConfig.updateProject(project -> project.setParent(newParentKey));
+          md.setMessage(
+              String.format(
+                  "Reparent to %s after renaming the project %s\n",
+                  newParentKey.get(), oldParentKey.get()));
+          projectConfig.commit(md);
+        }
+        childProjectIndex.setParent(child, newParentKey);
+        pm.update(1);
+      }
+    } finally {
+      // children already committed must be refreshed even if a later one failed
+      children.forEach(projectCache::evict);
+    }
+    log.debug(
+        "Reparented {} child project(s) of {} to {}",
+        children.size(),
+        oldParentKey.get(),
+        newParentKey.get());
+    return children.size();
+  }
+}
@@ -16,6 +16,7 @@ package com.googlesource.gerrit.plugins.renameproject;
 
 import com.google.gerrit.entities.Change.Id;
 import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.renameproject.RenameProject.Step;
 import com.googlesource.gerrit.plugins.renameproject.cache.CacheRenameHandler;
@@ -27,43 +28,60 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class RevertRenameProject {
   private static final Logger log = LoggerFactory.getLogger(RevertRenameProject.class);
 
+  private final GitRepositoryManager repoManager;
   private final DatabaseRenameHandler dbHandler;
   private final FilesystemRenameHandler fsHandler;
   private final CacheRenameHandler cacheHandler;
   private final IndexUpdateHandler indexHandler;
   private final LockUnlockProject lockUnlockProject;
+  private final ReparentChildProjects reparentChildProjects;
 
   @Inject
   RevertRenameProject(
+      GitRepositoryManager repoManager,
       DatabaseRenameHandler dbHandler,
       FilesystemRenameHandler fsHandler,
       CacheRenameHandler cacheHandler,
       IndexUpdateHandler indexHandler,
-      LockUnlockProject lockUnlockProject) {
+      LockUnlockProject lockUnlockProject,
+      ReparentChildProjects reparentChildProjects) {
+    this.repoManager = repoManager;
     this.dbHandler = dbHandler;
     this.fsHandler = fsHandler;
     this.cacheHandler = cacheHandler;
     this.indexHandler = indexHandler;
     this.lockUnlockProject = lockUnlockProject;
+    this.reparentChildProjects = reparentChildProjects;
   }
 
+  /**
+   * Reverts the given steps of a rename. A step may have been interrupted partway, so every step is
+   * reverted in a way that is harmless for the part of it that did not happen.
+   */
   void performRevert(
-      List<Step> stepsPerformed,
+      List<Step> steps,
       Set<Id> changeIds,
       Project.NameKey oldProjectKey,
       Project.NameKey newProjectKey,
       ProgressMonitor pm)
       throws IOException, RenameRevertException, ConfigInvalidException {
     pm.beginTask("Reverting the rename procedure.");
-    if (stepsPerformed.contains(Step.FILESYSTEM)) {
+    // the repository is only moved back if the move happened
+    if (steps.contains(Step.FILESYSTEM) && isMoved(oldProjectKey, newProjectKey)) {
       try {
-        fsHandler.rename(newProjectKey, oldProjectKey, pm);
+        if (steps.contains(Step.STORAGE)) {
+          fsHandler.restoreFromStorageTier(newProjectKey, oldProjectKey, pm);
+        } else {
+          fsHandler.rename(newProjectKey, oldProjectKey, pm);
+        }
+        lockUnlockProject.moveLock(newProjectKey, oldProjectKey);
         log.debug("Reverted the git repo name to {} successfully.", oldProjectKey.get());
       } catch (IOException e) {
         log.error(
@@ -71,11 +89,25 @@ public class RevertRenameProject {
         throw e;
       }
     }
-    if (stepsPerformed.contains(Step.CACHE)) {
+    // the children can only point back to the old name once it is in the project cache again
+    if (steps.contains(Step.CACHE)) {
       cacheHandler.update(newProjectKey, oldProjectKey);
       log.debug("Successfully removed project {} from project cache.", newProjectKey.get());
     }
-    if (stepsPerformed.contains(Step.DATABASE)) {
+    if (steps.contains(Step.REPARENT)) {
+      try {
+        reparentChildProjects.reparent(newProjectKey, oldProjectKey, pm);
+        log.debug("Reparented the child projects back to {} successfully.", oldProjectKey.get());
+      } catch (IOException | ConfigInvalidException e) {
+        log.error(
+            "Failed to reparent the child projects back to {}. Aborting revert. Exception caught:"
+                + " {}",
+            oldProjectKey.get(),
+            e.toString());
+        throw e;
+      }
+    }
+    if (steps.contains(Step.DATABASE)) {
       try {
         dbHandler.updateWatchEntries(newProjectKey, oldProjectKey);
         log.debug(
@@ -91,9 +123,10 @@ public class RevertRenameProject {
         throw e;
       }
     }
-    if (stepsPerformed.contains(Step.INDEX)) {
+    if (steps.contains(Step.INDEX)) {
       try {
         indexHandler.updateIndex(changeIds, oldProjectKey, pm);
+        cacheHandler.invalidateChangeIdProjects(changeIds);
         log.debug(
             "Reverted the secondary index successfully from project {} to project {}.",
             newProjectKey.get(),
@@ -107,4 +140,18 @@ public class RevertRenameProject {
     }
     lockUnlockProject.unlock(oldProjectKey);
   }
+
+  private boolean isMoved(Project.NameKey oldProjectKey, Project.NameKey newProjectKey)
+      throws IOException {
+    return exists(newProjectKey) && !exists(oldProjectKey);
+  }
+
+  private boolean exists(Project.NameKey key) throws IOException {
+    try {
+      repoManager.openRepository(key).close();
+      return true;
+    } catch (RepositoryNotFoundException e) {
+      return false;
+    }
+  }
 }
@@ -29,20 +29,18 @@ import org.eclipse.jgit.util.io.StreamCopyThread;
 /** Utility class that provides SSH access to remote URIs. */
 public class SshHelper {
   private final Provider<SshSessionFactory> sshSessionFactoryProvider;
-  private final int commandTimeout;
-  private final int connectionTimeout;
+  private final Configuration replicationConfig;
 
   @Inject
   protected SshHelper(
       Configuration replicationConfig, Provider<SshSessionFactory> sshSessionFactoryProvider) {
     this.sshSessionFactoryProvider = sshSessionFactoryProvider;
-    this.commandTimeout = replicationConfig.getSshCommandTimeout();
-    this.connectionTimeout = replicationConfig.getSshConnectionTimeout();
+    this.replicationConfig = replicationConfig;
   }
 
   public int executeRemoteSsh(URIish uri, String cmd, OutputStream errStream) throws IOException {
     RemoteSession ssh = connect(uri);
-    Process proc = ssh.exec(cmd, commandTimeout);
+    Process proc = ssh.exec(cmd, replicationConfig.getSshCommandTimeout());
     proc.getOutputStream().close();
     StreamCopyThread out = new StreamCopyThread(proc.getInputStream(), errStream);
     StreamCopyThread err = new StreamCopyThread(proc.getErrorStream(), errStream);
@@ -90,6 +88,8 @@ public class SshHelper {
 
   @VisibleForTesting
   public RemoteSession connect(URIish uri) throws TransportException {
-    return sshSessionFactoryProvider.get().getSession(uri, null, FS.DETECTED, connectionTimeout);
+    return sshSessionFactoryProvider
+        .get()
+        .getSession(uri, null, FS.DETECTED, replicationConfig.getSshConnectionTimeout());
   }
 }
@@ -0,0 +1,218 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import com.google.common.base.Throwables;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToIntFunction;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the steps of a rename concurrently, each one as soon as the steps it depends on completed.
+ *
+ * <p>Once a step fails, the steps that did not start yet are skipped, but the running ones are
+ * waited for, so that the steps performed are known exactly when the rename is reverted. A step
+ * that exceeds its timeout, or that runs when the rename is cancelled, is interrupted and fails
+ * the rename.
+ *
+ * <p>The steps run on an executor shared by all the renames. Closing the scheduler skips its steps
+ * that did not start yet, so that none of them runs after the rename gave up waiting for it.
+ */
+class StepScheduler implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(StepScheduler.class);
+  private static final long WATCHDOG_INTERVAL_MS = 1000;
+
+  interface Action {
+    void run() throws Exception;
+  }
+
+  /** Thrown by the steps skipped after a failure. */
+  private static class SkippedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static class RunningStep {
+    private final String name;
+    private final Thread thread;
+    private final long startedAt = System.nanoTime();
+    private boolean finished;
+    private boolean interrupted;
+
+    RunningStep(String name, Thread thread) {
+      this.name = name;
+      this.thread = thread;
+    }
+
+    boolean isOverdue(int timeoutSeconds) {
+      return timeoutSeconds > 0
+          && System.nanoTime() - startedAt > TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    }
+
+    synchronized void interrupt() {
+      if (!finished && !interrupted) {
+        log.warn("Interrupting rename step {}", name);
+        interrupted = true;
+        thread.interrupt();
+      }
+    }
+
+    synchronized void finish() {
+      finished = true;
+      // clear an interrupt that arrived once the step was done, the thread is reused
+      Thread.interrupted();
+    }
+  }
+
+  private final Executor executor;
+  private final BooleanSupplier cancelled;
+  private final ToIntFunction<String> timeouts;
+  private final Map<String, CompletableFuture<Void>> steps = new LinkedHashMap<>();
+  private final Map<String, RunningStep> running = new ConcurrentHashMap<>();
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+  private volatile boolean closed;
+
+  StepScheduler(Executor executor) {
+    this(executor, () -> false, name -> 0);
+  }
+
+  /**
+   * @param executor runs the steps, one at a time if it is sequential
+   * @param cancelled whether the rename was cancelled, checked while steps run
+   * @param timeouts number of seconds each step may run before being interrupted, 0 for no limit,
+   *     looked up while the step runs so that a reloaded timeout applies to it
+   */
+  StepScheduler(Executor executor, BooleanSupplier cancelled, ToIntFunction<String> timeouts) {
+    this.executor = executor;
+    this.cancelled = cancelled;
+    this.timeouts = timeouts;
+  }
+
+  /** Schedules a step, to be started once all its dependencies completed successfully. */
+  StepScheduler add(String name, Action action, String... dependencies) {
+    List<CompletableFuture<Void>> deps = new ArrayList<>();
+    for (String dependency : dependencies) {
+      CompletableFuture<Void> dep = steps.get(dependency);
+      if (dep == null) {
+        throw new IllegalArgumentException(
+            String.format("Step %s depends on unknown step %s", name, dependency));
+      }
+      deps.add(dep);
+    }
+    steps.put(
+        name,
+        CompletableFuture.allOf(deps.toArray(new CompletableFuture<?>[0]))
+            .thenRunAsync(() -> runStep(name, action), executor));
+    return this;
+  }
+
+  private void runStep(String name, Action action) {
+    if (cancelled.getAsBoolean()) {
+      failure.compareAndSet(null, new ResourceConflictException("The rename was cancelled"));
+    }
+    if (failure.get() != null || closed) {
+      log.debug("Skipping rename step {} after a failure", name);
+      throw new SkippedException();
+    }
+    RunningStep step = new RunningStep(name, Thread.currentThread());
+    running.put(name, step);
+    try {
+      log.debug("Starting rename step {}", name);
+      action.run();
+    } catch (Exception e) {
+      failure.compareAndSet(null, e);
+      throw new CompletionException(e);
+    } finally {
+      running.remove(name);
+      step.finish();
+    }
+  }
+
+  /**
+   * Waits for all the steps to complete, interrupting the ones that are overdue or cancelled, and
+   * rethrows the first failure, if any.
+   */
+  void run()
+      throws IOException,
+          ConfigInvalidException,
+          RenameRevertException,
+          ResourceConflictException,
+          InterruptedException {
+    CompletableFuture<Void> all =
+        CompletableFuture.allOf(steps.values().toArray(new CompletableFuture<?>[0]));
+    while (true) {
+      try {
+        all.get(WATCHDOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        break;
+      } catch (ExecutionException e) {
+        // reported through failure
+        break;
+      } catch (TimeoutException e) {
+        checkRunningSteps();
+      } catch (InterruptedException e) {
+        failure.compareAndSet(null, e);
+        running.values().forEach(RunningStep::interrupt);
+        throw e;
+      }
+    }
+    Exception e = failure.get();
+    if (e != null) {
+      Throwables.throwIfInstanceOf(e, IOException.class);
+      Throwables.throwIfInstanceOf(e, ConfigInvalidException.class);
+      Throwables.throwIfInstanceOf(e, RenameRevertException.class);
+      Throwables.throwIfInstanceOf(e, ResourceConflictException.class);
+      Throwables.throwIfInstanceOf(e, InterruptedException.class);
+      Throwables.throwIfUnchecked(e);
+      throw new IOException(e);
+    }
+  }
+
+  private void checkRunningSteps() {
+    boolean isCancelled = cancelled.getAsBoolean();
+    for (RunningStep step : running.values()) {
+      if (isCancelled) {
+        failure.compareAndSet(null, new ResourceConflictException("The rename was cancelled"));
+      } else if (step.isOverdue(timeouts.applyAsInt(step.name))) {
+        failure.compareAndSet(
+            null,
+            new ResourceConflictException(
+                String.format("Rename step %s exceeded its timeout", step.name)));
+      } else {
+        continue;
+      }
+      step.interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+}
@@ -0,0 +1,65 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.cache;
+
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/** Cache entries made stale by a rename, to be dropped on the other nodes of the cluster. */
+public class CacheInvalidation {
+  public static final String PROJECTS_CACHE = "projects";
+  public static final String CHANGE_ID_PROJECT_CACHE = "changeid_project";
+
+  String origin;
+  String oldProject;
+  String newProject;
+  List<String> caches;
+  List<Integer> changeIds;
+
+  public CacheInvalidation(
+      String origin,
+      Project.NameKey oldProjectKey,
+      Project.NameKey newProjectKey,
+      Set<Change.Id> changeIds) {
+    this.origin = origin;
+    this.oldProject = oldProjectKey.get();
+    this.newProject = newProjectKey.get();
+    this.caches = List.of(PROJECTS_CACHE, CHANGE_ID_PROJECT_CACHE);
+    this.changeIds = changeIds.stream().map(Change.Id::get).collect(Collectors.toList());
+  }
+
+  public String getOrigin() {
+    return origin;
+  }
+
+  public Project.NameKey getOldProjectKey() {
+    return Project.nameKey(oldProject);
+  }
+
+  public Project.NameKey getNewProjectKey() {
+    return Project.nameKey(newProject);
+  }
+
+  public List<String> getCaches() {
+    return caches;
+  }
+
+  public Set<Change.Id> getChangeIds() {
+    return changeIds.stream().map(Change::id).collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,34 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.cache;
+
+import java.io.IOException;
+
+/**
+ * Sends the cache entries made stale by a rename to the other primaries of a multi-site setup.
+ *
+ * <p>The default implementation exchanges invalidations through a shared directory. Other plugins
+ * can bind their own implementation to carry them over a message broker instead.
+ */
+public interface CacheInvalidationBroadcaster {
+
+  /**
+   * Publish the invalidation to the peer nodes.
+   *
+   * @param invalidation stale cache entries, as seen by this node.
+   * @throws IOException if the invalidation could not be published.
+   */
+  void broadcast(CacheInvalidation invalidation) throws IOException;
+}
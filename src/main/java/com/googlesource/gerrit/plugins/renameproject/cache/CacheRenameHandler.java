@@ -14,20 +14,67 @@
 
 package com.googlesource.gerrit.plugins.renameproject.cache;
 
+import com.google.common.cache.Cache;
+import com.google.gerrit.entities.Change;
 import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.permissions.PermissionBackend;
+import com.google.gerrit.server.permissions.ProjectPermission;
+import com.google.gerrit.server.permissions.RefPermission;
 import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.gerrit.server.query.change.ChangeData;
+import com.google.gerrit.server.query.change.InternalChangeQuery;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.renameproject.Configuration;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Singleton
 public class CacheRenameHandler {
+  private static final Logger log = LoggerFactory.getLogger(CacheRenameHandler.class);
+  private static final String CHANGE_ID_PROJECT_CACHE = "changeid_project";
 
   private final ProjectCache projectCache;
+  private final Cache<Change.Id, String> changeIdProjectCache;
+  private final Provider<InternalChangeQuery> queryProvider;
+  private final PermissionBackend permissionBackend;
+  private final GitRepositoryManager repoManager;
+  private final ChildProjectIndex childProjectIndex;
+  private final SubscriptionIndex subscriptionIndex;
+  private final Configuration cfg;
 
   @Inject
-  public CacheRenameHandler(ProjectCache projectCache) {
+  public CacheRenameHandler(
+      ProjectCache projectCache,
+      @Named(CHANGE_ID_PROJECT_CACHE) Cache<Change.Id, String> changeIdProjectCache,
+      Provider<InternalChangeQuery> queryProvider,
+      PermissionBackend permissionBackend,
+      GitRepositoryManager repoManager,
+      ChildProjectIndex childProjectIndex,
+      SubscriptionIndex subscriptionIndex,
+      Configuration cfg) {
     this.projectCache = projectCache;
+    this.changeIdProjectCache = changeIdProjectCache;
+    this.queryProvider = queryProvider;
+    this.permissionBackend = permissionBackend;
+    this.repoManager = repoManager;
+    this.childProjectIndex = childProjectIndex;
+    this.subscriptionIndex = subscriptionIndex;
+    this.cfg = cfg;
   }
 
   public void update(Project.NameKey oldProjectKey, Project.NameKey newProjectKey)
@@ -35,5 +82,105 @@ public class CacheRenameHandler {
     projectCache.remove(oldProjectKey);
     projectCache.evict(newProjectKey);
     projectCache.onCreateProject(newProjectKey);
+    childProjectIndex.rename(oldProjectKey, newProjectKey);
+    subscriptionIndex.rename(oldProjectKey, newProjectKey);
+  }
+
+  /** Drops the cache entries invalidated by a rename performed on another node. */
+  public void apply(CacheInvalidation invalidation) throws IOException {
+    if (invalidation.getCaches().contains(CacheInvalidation.PROJECTS_CACHE)) {
+      update(invalidation.getOldProjectKey(), invalidation.getNewProjectKey());
+      // the children were reparented by the node that renamed the project, without local events
+      childProjectIndex.moveChildren(
+          invalidation.getOldProjectKey(), invalidation.getNewProjectKey());
+      childProjectIndex.refresh(invalidation.getNewProjectKey());
+    }
+    if (invalidation.getCaches().contains(CacheInvalidation.CHANGE_ID_PROJECT_CACHE)) {
+      invalidateChangeIdProjects(invalidation.getChangeIds());
+    }
+  }
+
+  /**
+   * Loads the project state of the renamed project and its parents, and evaluates the permissions
+   * of the given user on the most used refs.
+   */
+  public void warmUp(Project.NameKey projectKey, CurrentUser user) {
+    Optional<ProjectState> state = projectCache.get(projectKey);
+    if (!state.isPresent()) {
+      log.warn("Project {} not found in project cache, skipping warm-up", projectKey.get());
+      return;
+    }
+    int parents = state.get().parents().size();
+    PermissionBackend.ForProject perm = permissionBackend.user(user).project(projectKey);
+    perm.testOrFalse(ProjectPermission.ACCESS);
+    for (String ref : warmUpRefs(projectKey)) {
+      perm.ref(ref).testOrFalse(RefPermission.READ);
+    }
+    log.debug("Warmed up project {} and {} parent(s)", projectKey.get(), parents);
+  }
+
+  private List<String> warmUpRefs(Project.NameKey projectKey) {
+    List<String> refs = new ArrayList<>();
+    refs.add(RefNames.REFS_CONFIG);
+    try (Repository repo = repoManager.openRepository(projectKey)) {
+      String head = repo.getFullBranch();
+      if (head != null) {
+        refs.add(head);
+      }
+    } catch (IOException e) {
+      log.warn("Cannot read HEAD of {}", projectKey.get(), e);
+    }
+    return refs;
+  }
+
+  /**
+   * Points the changeId -> project cache entries of the given changes to the new project, according
+   * to the configured update mode. Must be called once the secondary index has been updated.
+   */
+  public void updateChangeIdProjects(Set<Change.Id> changeIds, Project.NameKey newProjectKey) {
+    switch (cfg.getChangeIdCacheUpdate()) {
+      case PREFILL:
+        prefillOpenChanges(newProjectKey);
+        rewriteChangeIdProjects(changeIds, newProjectKey);
+        break;
+      case REWRITE:
+        rewriteChangeIdProjects(changeIds, newProjectKey);
+        break;
+      case INVALIDATE:
+      default:
+        invalidateChangeIdProjects(changeIds);
+    }
+  }
+
+  public void invalidateChangeIdProjects(Set<Change.Id> changeIds) {
+    changeIdProjectCache.invalidateAll(changeIds);
+  }
+
+  /**
+   * Points the changeId -> project cache entries of the given changes that are cached to the new
+   * project. Unlike {@link #updateChangeIdProjects}, this does not read the secondary index.
+   */
+  public void rewriteChangeIdProjects(Set<Change.Id> changeIds, Project.NameKey newProjectKey) {
+    Map<Change.Id, String> rewritten = new HashMap<>();
+    for (Change.Id id : changeIdProjectCache.getAllPresent(changeIds).keySet()) {
+      rewritten.put(id, newProjectKey.get());
+    }
+    changeIdProjectCache.putAll(rewritten);
+    log.debug(
+        "Rewrote {} changeId -> project cache entries to project {}",
+        rewritten.size(),
+        newProjectKey.get());
+  }
+
+  private void prefillOpenChanges(Project.NameKey newProjectKey) {
+    Map<Change.Id, String> open = new HashMap<>();
+    for (ChangeData cd : queryProvider.get().noFields().byProjectOpen(newProjectKey)) {
+      open.put(cd.getId(), newProjectKey.get());
+    }
+    changeIdProjectCache.putAll(open);
+    log.debug(
+        "Prefilled {} changeId -> project cache entries for project {}",
+        open.size(),
+        newProjectKey.get());
   }
 }
@@ -0,0 +1,239 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.events.NewProjectCreatedListener;
+import com.google.gerrit.extensions.events.ProjectDeletedListener;
+import com.google.gerrit.server.config.AllProjectsName;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectConfig;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.Configuration;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Future;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parent to children index of the projects, so that the children of a project are found without
+ * loading every project.
+ *
+ * <p>The index is built in the background when the plugin starts, and kept up to date as projects
+ * are created, deleted, reparented and renamed on this node. Until it is built, or when the renames
+ * are shared with other primaries, whose reparenting fires no event here, the children are found
+ * by going through all the projects.
+ */
+@Singleton
+public class ChildProjectIndex
+    implements LifecycleListener,
+        NewProjectCreatedListener,
+        ProjectDeletedListener,
+        GitReferenceUpdatedListener {
+  private static final Logger log = LoggerFactory.getLogger(ChildProjectIndex.class);
+
+  private final ProjectCache projectCache;
+  private final ProjectConfig.Factory projectConfigFactory;
+  private final GitRepositoryManager repoManager;
+  private final AllProjectsName allProjectsName;
+  private final WorkQueue workQueue;
+  private final boolean sharedWithPeers;
+  private final Map<Project.NameKey, Project.NameKey> parents = new HashMap<>();
+  private final Map<Project.NameKey, Set<Project.NameKey>> children = new HashMap<>();
+  private final Set<Project.NameKey> deletedWhileLoading = new HashSet<>();
+  private volatile boolean loaded;
+  private Future<?> loader;
+
+  @Inject
+  ChildProjectIndex(
+      ProjectCache projectCache,
+      ProjectConfig.Factory projectConfigFactory,
+      GitRepositoryManager repoManager,
+      AllProjectsName allProjectsName,
+      WorkQueue workQueue,
+      Configuration cfg) {
+    this.projectCache = projectCache;
+    this.projectConfigFactory = projectConfigFactory;
+    this.repoManager = repoManager;
+    this.allProjectsName = allProjectsName;
+    this.workQueue = workQueue;
+    this.sharedWithPeers = cfg.getCacheBroadcastDirectory().isPresent();
+  }
+
+  @Override
+  public void start() {
+    loader = workQueue.getDefaultQueue().submit(this::load);
+  }
+
+  @Override
+  public void stop() {
+    if (loader != null) {
+      loader.cancel(true);
+    }
+  }
+
+  void load() {
+    int count = 0;
+    for (Project.NameKey key : projectCache.all()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      Optional<Project.NameKey> parent = projectCache.get(key).map(this::parentOf);
+      synchronized (this) {
+        // a project updated while loading is already indexed with its latest parent, and one
+        // deleted while loading must not come back from the snapshot
+        if (parent.isPresent()
+            && !parents.containsKey(key)
+            && !deletedWhileLoading.contains(key)) {
+          put(key, parent.get());
+        }
+      }
+      count++;
+    }
+    synchronized (this) {
+      deletedWhileLoading.clear();
+      loaded = true;
+    }
+    log.debug("Indexed the parents of {} project(s)", count);
+  }
+
+  /** Direct children of a project, which does not need to exist anymore, sorted by name. */
+  public ImmutableList<Project.NameKey> getChildren(Project.NameKey parentKey) {
+    if (!loaded || sharedWithPeers) {
+      return projectCache.all().stream()
+          .filter(key -> isChildOf(key, parentKey))
+          .collect(ImmutableList.toImmutableList());
+    }
+    synchronized (this) {
+      return ImmutableSortedSet.copyOf(children.getOrDefault(parentKey, Set.of())).asList();
+    }
+  }
+
+  private boolean isChildOf(Project.NameKey key, Project.NameKey parentKey) {
+    return projectCache.get(key).map(this::parentOf).filter(parentKey::equals).isPresent();
+  }
+
+  /** Records the new parent of a project. */
+  public synchronized void setParent(Project.NameKey key, Project.NameKey parentKey) {
+    remove(key);
+    put(key, parentKey);
+  }
+
+  /**
+   * Moves a renamed project to its new name. Its children keep pointing to the old name until they
+   * are reparented.
+   */
+  public synchronized void rename(Project.NameKey oldKey, Project.NameKey newKey) {
+    Project.NameKey parent = parents.get(oldKey);
+    if (parent != null) {
+      remove(oldKey);
+      put(newKey, parent);
+    }
+  }
+
+  /** Records that all the children of a project were reparented to another one. */
+  public synchronized void moveChildren(Project.NameKey oldParentKey, Project.NameKey newParentKey) {
+    Set<Project.NameKey> moved = children.remove(oldParentKey);
+    if (moved != null) {
+      moved.forEach(child -> parents.put(child, newParentKey));
+      children.computeIfAbsent(newParentKey, k -> new HashSet<>()).addAll(moved);
+    }
+  }
+
+  @Override
+  public void onNewProjectCreated(NewProjectCreatedListener.Event event) {
+    refresh(Project.nameKey(event.getProjectName()));
+  }
+
+  @Override
+  public void onProjectDeleted(ProjectDeletedListener.Event event) {
+    Project.NameKey key = Project.nameKey(event.getProjectName());
+    synchronized (this) {
+      remove(key);
+      if (!loaded) {
+        deletedWhileLoading.add(key);
+      }
+    }
+  }
+
+  @Override
+  public void onGitReferenceUpdated(GitReferenceUpdatedListener.Event event) {
+    if (RefNames.REFS_CONFIG.equals(event.getRefName())) {
+      refresh(Project.nameKey(event.getProjectName()));
+    }
+  }
+
+  /** Reads the parent of a project again, from its repository. */
+  public void refresh(Project.NameKey key) {
+    // the project cache may not be refreshed yet, so the parent is read from the repository
+    try (Repository repo = repoManager.openRepository(key)) {
+      ProjectConfig config = projectConfigFactory.create(key);
+      config.load(key, repo);
+      Project.NameKey parent = parentOf(config.getProject());
+      synchronized (this) {
+        remove(key);
+        deletedWhileLoading.remove(key);
+        if (parent != null) {
+          put(key, parent);
+        }
+      }
+    } catch (IOException | ConfigInvalidException e) {
+      log.warn("Cannot read the parent of {}, dropping it from the index", key.get(), e);
+      synchronized (this) {
+        remove(key);
+      }
+    }
+  }
+
+  private Project.NameKey parentOf(ProjectState state) {
+    return parentOf(state.getProject());
+  }
+
+  private Project.NameKey parentOf(Project project) {
+    return project.getParent(allProjectsName);
+  }
+
+  private void put(Project.NameKey key, Project.NameKey parent) {
+    parents.put(key, parent);
+    children.computeIfAbsent(parent, k -> new HashSet<>()).add(key);
+  }
+
+  private void remove(Project.NameKey key) {
+    Project.NameKey parent = parents.remove(key);
+    if (parent != null) {
+      Set<Project.NameKey> siblings = children.get(parent);
+      siblings.remove(key);
+      if (siblings.isEmpty()) {
+        children.remove(parent);
+      }
+    }
+  }
+}
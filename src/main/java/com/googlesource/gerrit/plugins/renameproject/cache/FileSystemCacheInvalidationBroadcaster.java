@@ -0,0 +1,183 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.json.OutputFormat;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gson.Gson;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.Configuration;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exchanges cache invalidations through a directory shared by all the primaries, e.g. on NFS.
+ *
+ * <p>Each invalidation is written to its own file. Every node polls the directory and applies the
+ * invalidations written by the other nodes since it started. Files older than the retention period
+ * are removed.
+ */
+@Singleton
+public class FileSystemCacheInvalidationBroadcaster
+    implements CacheInvalidationBroadcaster, LifecycleListener {
+  private static final Logger log =
+      LoggerFactory.getLogger(FileSystemCacheInvalidationBroadcaster.class);
+  private static final String SUFFIX = ".json";
+  private static final long RETENTION_MS = TimeUnit.DAYS.toMillis(1);
+
+  private final Optional<Path> directory;
+  private final int pollInterval;
+  private final CacheRenameHandler cacheHandler;
+  private final WorkQueue workQueue;
+  private final String nodeId;
+  private final Gson gson = OutputFormat.JSON_COMPACT.newGson();
+  private final Set<String> seen = new HashSet<>();
+  private final long startTime;
+  private ScheduledFuture<?> poller;
+
+  @Inject
+  FileSystemCacheInvalidationBroadcaster(
+      Configuration cfg, CacheRenameHandler cacheHandler, WorkQueue workQueue) {
+    this.directory = cfg.getCacheBroadcastDirectory();
+    this.pollInterval = cfg.getCacheBroadcastPollInterval();
+    this.cacheHandler = cacheHandler;
+    this.workQueue = workQueue;
+    this.nodeId = cfg.getNodeId();
+    this.startTime = System.currentTimeMillis();
+  }
+
+  @Override
+  public void start() {
+    if (directory.isPresent()) {
+      poller =
+          workQueue
+              .getDefaultQueue()
+              .scheduleAtFixedRate(this::poll, pollInterval, pollInterval, TimeUnit.SECONDS);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (poller != null) {
+      poller.cancel(false);
+      poller = null;
+    }
+  }
+
+  @Override
+  public void broadcast(CacheInvalidation invalidation) throws IOException {
+    if (!directory.isPresent()) {
+      return;
+    }
+    Path dir = directory.get();
+    Files.createDirectories(dir);
+    String name = System.currentTimeMillis() + "-" + UUID.randomUUID() + SUFFIX;
+    Path tmp = Files.createTempFile(dir, ".", ".tmp");
+    Files.write(tmp, gson.toJson(invalidation).getBytes(StandardCharsets.UTF_8));
+    Files.move(tmp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    synchronized (seen) {
+      seen.add(name);
+    }
+  }
+
+  @VisibleForTesting
+  void poll() {
+    if (!directory.isPresent() || !Files.isDirectory(directory.get())) {
+      return;
+    }
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory.get(), "*" + SUFFIX)) {
+      dir.forEach(files::add);
+    } catch (IOException e) {
+      log.error("Cannot list cache invalidations in {}", directory.get(), e);
+      return;
+    }
+    files.sort(null);
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      long written = writtenAt(name);
+      if (written <= 0) {
+        continue;
+      }
+      if (written < System.currentTimeMillis() - RETENTION_MS) {
+        deleteQuietly(file);
+        continue;
+      }
+      synchronized (seen) {
+        if (written < startTime || !seen.add(name)) {
+          continue;
+        }
+      }
+      apply(file);
+    }
+  }
+
+  private void apply(Path file) {
+    CacheInvalidation invalidation;
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      invalidation = gson.fromJson(reader, CacheInvalidation.class);
+    } catch (IOException | RuntimeException e) {
+      log.error("Cannot read cache invalidation {}", file, e);
+      return;
+    }
+    if (nodeId.equals(invalidation.getOrigin())) {
+      return;
+    }
+    try {
+      cacheHandler.apply(invalidation);
+      log.debug(
+          "Applied cache invalidation from {} for the rename of {} to {}",
+          invalidation.getOrigin(),
+          invalidation.getOldProjectKey().get(),
+          invalidation.getNewProjectKey().get());
+    } catch (IOException e) {
+      log.error("Cannot apply cache invalidation {}", file, e);
+    }
+  }
+
+  private static long writtenAt(String name) {
+    try {
+      return Long.parseLong(name.substring(0, name.indexOf('-')));
+    } catch (RuntimeException e) {
+      return 0;
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Cannot delete expired cache invalidation {}", file, e);
+    }
+  }
+}
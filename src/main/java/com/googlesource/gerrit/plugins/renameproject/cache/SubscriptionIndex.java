@@ -0,0 +1,154 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.cache;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.events.NewProjectCreatedListener;
+import com.google.gerrit.extensions.events.ProjectDeletedListener;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectConfig;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Projects whose configuration allows superprojects to subscribe to their branches.
+ *
+ * <p>A branch can only be subscribed to if its project, or one of its parents, has such a section
+ * in refs/meta/config, so the submodule subscriptions of the other projects need not be computed.
+ * The sections are read for all the projects in the background when the plugin starts, and again
+ * for a project whenever its refs/meta/config is updated on this node. In doubt, a project is
+ * assumed to allow subscriptions.
+ */
+@Singleton
+public class SubscriptionIndex
+    implements LifecycleListener,
+        NewProjectCreatedListener,
+        ProjectDeletedListener,
+        GitReferenceUpdatedListener {
+  private static final Logger log = LoggerFactory.getLogger(SubscriptionIndex.class);
+
+  private final ProjectCache projectCache;
+  private final ProjectConfig.Factory projectConfigFactory;
+  private final GitRepositoryManager repoManager;
+  private final WorkQueue workQueue;
+  private final Set<Project.NameKey> allowing = ConcurrentHashMap.newKeySet();
+  private volatile boolean loaded;
+  private Future<?> loader;
+
+  @Inject
+  SubscriptionIndex(
+      ProjectCache projectCache,
+      ProjectConfig.Factory projectConfigFactory,
+      GitRepositoryManager repoManager,
+      WorkQueue workQueue) {
+    this.projectCache = projectCache;
+    this.projectConfigFactory = projectConfigFactory;
+    this.repoManager = repoManager;
+    this.workQueue = workQueue;
+  }
+
+  @Override
+  public void start() {
+    loader = workQueue.getDefaultQueue().submit(this::load);
+  }
+
+  @Override
+  public void stop() {
+    if (loader != null) {
+      loader.cancel(true);
+    }
+  }
+
+  void load() {
+    for (Project.NameKey key : projectCache.all()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      Optional<ProjectState> state = projectCache.get(key);
+      if (state.isPresent() && !state.get().getConfig().getSubscribeSections().isEmpty()) {
+        allowing.add(key);
+      }
+    }
+    loaded = true;
+    log.debug("{} project(s) allow superproject subscriptions", allowing.size());
+  }
+
+  /** Whether superprojects may subscribe to branches of the project. */
+  public boolean mayHaveSuperprojects(ProjectState state) {
+    if (!loaded) {
+      return true;
+    }
+    for (ProjectState project : state.tree()) {
+      if (allowing.contains(project.getNameKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Moves a renamed project to its new name. */
+  public void rename(Project.NameKey oldKey, Project.NameKey newKey) {
+    if (allowing.remove(oldKey)) {
+      allowing.add(newKey);
+    }
+  }
+
+  @Override
+  public void onNewProjectCreated(NewProjectCreatedListener.Event event) {
+    refresh(Project.nameKey(event.getProjectName()));
+  }
+
+  @Override
+  public void onProjectDeleted(ProjectDeletedListener.Event event) {
+    allowing.remove(Project.nameKey(event.getProjectName()));
+  }
+
+  @Override
+  public void onGitReferenceUpdated(GitReferenceUpdatedListener.Event event) {
+    if (RefNames.REFS_CONFIG.equals(event.getRefName())) {
+      refresh(Project.nameKey(event.getProjectName()));
+    }
+  }
+
+  private void refresh(Project.NameKey key) {
+    try (Repository repo = repoManager.openRepository(key)) {
+      ProjectConfig config = projectConfigFactory.create(key);
+      config.load(key, repo);
+      if (config.getSubscribeSections().isEmpty()) {
+        allowing.remove(key);
+      } else {
+        allowing.add(key);
+      }
+    } catch (IOException | ConfigInvalidException e) {
+      log.warn("Cannot read the subscribe sections of {}, keeping it checked", key.get(), e);
+      allowing.add(key);
+    }
+  }
+}
@@ -19,13 +19,12 @@ import static java.util.stream.Collectors.toSet;
 
 import com.google.gerrit.entities.BranchNameKey;
 import com.google.gerrit.entities.Project;
-import com.google.gerrit.extensions.common.ProjectInfo;
-import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.events.LifecycleListener;
 import com.google.gerrit.server.config.AllProjectsName;
 import com.google.gerrit.server.config.AllUsersName;
 import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.git.WorkQueue;
 import com.google.gerrit.server.project.ProjectResource;
-import com.google.gerrit.server.restapi.project.ListChildProjects;
 import com.google.gerrit.server.submit.MergeOpRepoManager;
 import com.google.gerrit.server.submit.SubmoduleConflictException;
 import com.google.gerrit.server.submit.SubscriptionGraph;
@@ -33,9 +32,15 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.renameproject.CannotRenameProjectException;
+import com.googlesource.gerrit.plugins.renameproject.cache.ChildProjectIndex;
+import com.googlesource.gerrit.plugins.renameproject.cache.SubscriptionIndex;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.eclipse.jgit.lib.Repository;
@@ -44,40 +49,126 @@ import org.slf4j.LoggerFactory;
 
 /** Checks all the preconditions before renaming project. */
 @Singleton
-public class RenamePreconditions {
+public class RenamePreconditions implements LifecycleListener {
 
   private static final Logger log = LoggerFactory.getLogger(RenamePreconditions.class);
 
   public final AllProjectsName allProjectsName;
   public final AllUsersName allUsersName;
-  private final Provider<ListChildProjects> listChildProjectsProvider;
+  private final ChildProjectIndex childProjectIndex;
+  private final SubscriptionIndex subscriptionIndex;
   private final GitRepositoryManager repoManager;
   private final SubscriptionGraph.Factory subscriptionGraphFactory;
   private final Provider<MergeOpRepoManager> ormProvider;
+  private final WorkQueue workQueue;
+  private ExecutorService executor;
+
+  private interface Check {
+    void run() throws CannotRenameProjectException;
+  }
 
   @Inject
   public RenamePreconditions(
       AllProjectsName allProjectsName,
       AllUsersName allUsersName,
-      Provider<ListChildProjects> listChildProjectsProvider,
+      ChildProjectIndex childProjectIndex,
+      SubscriptionIndex subscriptionIndex,
       GitRepositoryManager repoManager,
       SubscriptionGraph.Factory subscriptionGraphFactory,
-      Provider<MergeOpRepoManager> ormProvider) {
+      Provider<MergeOpRepoManager> ormProvider,
+      WorkQueue workQueue) {
     this.allProjectsName = allProjectsName;
     this.allUsersName = allUsersName;
-    this.listChildProjectsProvider = listChildProjectsProvider;
+    this.childProjectIndex = childProjectIndex;
+    this.subscriptionIndex = subscriptionIndex;
     this.repoManager = repoManager;
     this.subscriptionGraphFactory = subscriptionGraphFactory;
     this.ormProvider = ormProvider;
+    this.workQueue = workQueue;
+  }
+
+  @Override
+  public void start() {
+    // all the conditions but the one checked by the calling thread
+    executor = workQueue.createQueue(3, "Rename-Precondition");
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
   }
 
   public void assertCanRename(ProjectResource oldProjectRsrc, Project.NameKey newProjectKey)
       throws CannotRenameProjectException {
+    assertCanRename(oldProjectRsrc, newProjectKey, false);
+  }
+
+  /**
+   * Same as {@link #assertCanRename(ProjectResource, Project.NameKey)}, allowing the project to
+   * have children if they are reparented as part of the rename.
+   *
+   * <p>The conditions are checked concurrently, and all the failed ones are reported together.
+   */
+  public void assertCanRename(
+      ProjectResource oldProjectRsrc, Project.NameKey newProjectKey, boolean reparentChildren)
+      throws CannotRenameProjectException {
     Project.NameKey oldProjectKey = oldProjectRsrc.getNameKey();
-    assertNewRepoNotExists(newProjectKey);
-    assertIsNotDefaultProject(oldProjectKey);
-    assertHasNoChildProjects(oldProjectRsrc);
-    assertIsNotSubscribed(oldProjectKey);
+    List<Check> checks = new ArrayList<>();
+    checks.add(() -> assertNewRepoNotExists(newProjectKey));
+    checks.add(() -> assertIsNotDefaultProject(oldProjectKey));
+    if (!reparentChildren) {
+      checks.add(() -> assertHasNoChildProjects(oldProjectRsrc));
+    }
+    checks.add(() -> assertIsNotSubscribed(oldProjectRsrc));
+    checkAll(checks);
+  }
+
+  private void checkAll(List<Check> checks) throws CannotRenameProjectException {
+    List<Future<?>> pending = new ArrayList<>();
+    for (Check check : checks.subList(0, checks.size() - 1)) {
+      pending.add(
+          executor.submit(
+              () -> {
+                check.run();
+                return null;
+              }));
+    }
+    List<CannotRenameProjectException> failures = new ArrayList<>();
+    try {
+      // the calling thread checks the last condition rather than waiting idle
+      checks.get(checks.size() - 1).run();
+    } catch (CannotRenameProjectException e) {
+      failures.add(e);
+    }
+    try {
+      for (Future<?> check : pending) {
+        try {
+          check.get();
+        } catch (ExecutionException e) {
+          failures.add(
+              e.getCause() instanceof CannotRenameProjectException
+                  ? (CannotRenameProjectException) e.getCause()
+                  : new CannotRenameProjectException(e));
+        }
+      }
+    } catch (InterruptedException e) {
+      pending.forEach(check -> check.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new CannotRenameProjectException(e);
+    }
+    if (failures.size() == 1) {
+      throw failures.get(0);
+    }
+    if (!failures.isEmpty()) {
+      CannotRenameProjectException e =
+          new CannotRenameProjectException(
+              failures.stream().map(Throwable::getMessage).collect(Collectors.joining("; ")));
+      failures.forEach(e::addSuppressed);
+      throw e;
+    }
   }
 
   private void assertIsNotDefaultProject(Project.NameKey key) throws CannotRenameProjectException {
@@ -89,24 +180,22 @@ public class RenamePreconditions {
   }
 
   private void assertHasNoChildProjects(ProjectResource rsrc) throws CannotRenameProjectException {
-    try {
-      Response<List<ProjectInfo>> children = listChildProjectsProvider.get().apply(rsrc);
-      if (!children.value().isEmpty()) {
-        String childrenString =
-            String.join(
-                ", ",
-                children.value().stream().map(info -> info.name).collect(Collectors.toList()));
-        String message =
-            String.format("Cannot rename project because it has children: %s", childrenString);
-        log.error(message);
-        throw new CannotRenameProjectException(message);
-      }
-    } catch (Exception e) {
-      throw new CannotRenameProjectException(e);
+    List<Project.NameKey> children = childProjectIndex.getChildren(rsrc.getNameKey());
+    if (!children.isEmpty()) {
+      String childrenString =
+          children.stream().map(Project.NameKey::get).collect(Collectors.joining(", "));
+      String message =
+          String.format("Cannot rename project because it has children: %s", childrenString);
+      log.error(message);
+      throw new CannotRenameProjectException(message);
     }
   }
 
-  private void assertIsNotSubscribed(Project.NameKey key) throws CannotRenameProjectException {
+  private void assertIsNotSubscribed(ProjectResource rsrc) throws CannotRenameProjectException {
+    if (!subscriptionIndex.mayHaveSuperprojects(rsrc.getProjectState())) {
+      return;
+    }
+    Project.NameKey key = rsrc.getNameKey();
     try (Repository repo = repoManager.openRepository(key);
         MergeOpRepoManager orm = ormProvider.get()) {
       Set<BranchNameKey> branches =
@@ -14,6 +14,7 @@
 
 package com.googlesource.gerrit.plugins.renameproject.database;
 
+import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.gerrit.entities.Account;
@@ -35,9 +36,11 @@ import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.eclipse.jgit.errors.ConfigInvalidException;
 import org.eclipse.jgit.lib.Repository;
 import org.slf4j.Logger;
@@ -74,85 +77,109 @@ public class DatabaseRenameHandler {
     return changeIds;
   }
 
+  public int countWatchers(Project.NameKey projectKey) {
+    return accountQueryProvider.get().byWatchedProject(projectKey).size();
+  }
+
   public void updateWatchEntriesWithRollback(
       Project.NameKey oldProjectKey, Project.NameKey newProjectKey, ProgressMonitor pm)
       throws RenameRevertException, IOException, ConfigInvalidException {
+    updateWatchEntriesWithRollback(ImmutableMap.of(oldProjectKey, newProjectKey), pm);
+  }
+
+  /**
+   * Moves the watch entries of several renamed projects at once, each account watching any of
+   * them being updated only once.
+   */
+  public void updateWatchEntriesWithRollback(
+      Map<Project.NameKey, Project.NameKey> renames, ProgressMonitor pm)
+      throws RenameRevertException, IOException, ConfigInvalidException {
     pm.beginTask("Updating project watch entries");
-    log.debug(
-        "Updating watch entries from project {} to project {}",
-        oldProjectKey.get(),
-        newProjectKey.get());
+    log.debug("Updating watch entries of {}", describe(renames));
     try {
-      updateWatchEntries(oldProjectKey, newProjectKey);
+      updateWatchEntries(renames);
     } catch (Exception e) {
       log.error(
-          "Failed to update watch entries for project {}, exception caught: {}. Rolling back the"
+          "Failed to update watch entries of {}, exception caught: {}. Rolling back the"
               + " operation.",
-          oldProjectKey.get(),
+          describe(renames),
           e.toString());
       try {
-        updateWatchEntries(newProjectKey, oldProjectKey);
+        updateWatchEntries(reverse(renames));
       } catch (Exception revertEx) {
         log.error(
-            "Failed to rollback changes in noteDb from project {} to project {}, exception caught:"
-                + " {}",
-            newProjectKey.get(),
-            oldProjectKey.get(),
+            "Failed to rollback changes in noteDb of {}, exception caught: {}",
+            describe(reverse(renames)),
             revertEx.toString());
         throw new RenameRevertException(revertEx, e);
       }
       throw e;
     }
-    log.debug(
-        "Successfully updated watch entries from project {} to project {}",
-        oldProjectKey.get(),
-        newProjectKey.get());
+    log.debug("Successfully updated watch entries of {}", describe(renames));
   }
 
   public void updateWatchEntries(Project.NameKey oldProjectKey, Project.NameKey newProjectKey)
       throws IOException, ConfigInvalidException {
-    for (AccountState a : accountQueryProvider.get().byWatchedProject(oldProjectKey)) {
+    updateWatchEntries(ImmutableMap.of(oldProjectKey, newProjectKey));
+  }
+
+  public void updateWatchEntries(Map<Project.NameKey, Project.NameKey> renames)
+      throws IOException, ConfigInvalidException {
+    Map<Account.Id, AccountState> watchers = new LinkedHashMap<>();
+    for (Project.NameKey oldProjectKey : renames.keySet()) {
+      for (AccountState a : accountQueryProvider.get().byWatchedProject(oldProjectKey)) {
+        watchers.putIfAbsent(a.account().id(), a);
+      }
+    }
+    for (AccountState a : watchers.values()) {
       Account.Id accountId = a.account().id();
       ImmutableMap<ProjectWatchKey, ImmutableSet<NotifyType>> projectWatches = a.projectWatches();
       Map<ProjectWatchKey, Set<NotifyType>> newProjectWatches = new HashMap<>();
       List<ProjectWatchKey> oldProjectWatches = new ArrayList<>();
-      for (ProjectWatchKey watchKey : a.projectWatches().keySet()) {
-        if (oldProjectKey.equals(watchKey.project())) {
+      for (ProjectWatchKey watchKey : projectWatches.keySet()) {
+        Project.NameKey newProjectKey = renames.get(watchKey.project());
+        if (newProjectKey != null) {
           newProjectWatches.put(
               ProjectWatchKey.create(newProjectKey, watchKey.filter()),
               projectWatches.get(watchKey));
           oldProjectWatches.add(watchKey);
-          try {
-            String updateMessage =
-                String.format(
-                    "Remove watch entries for %s and Add watch entries for %s",
-                    oldProjectKey.get(), newProjectKey.get());
-            accountsUpdateProvider
-                .get()
-                .update(
-                    updateMessage,
-                    accountId,
-                    u ->
-                        u.deleteProjectWatches(oldProjectWatches)
-                            .updateProjectWatches(newProjectWatches));
-          } catch (ConfigInvalidException e) {
-            log.error(
-                "Updating watch entry for user {} in project {} failed. Watch config found"
-                    + " invalid.",
-                a.userName(),
-                newProjectKey.get(),
-                e);
-            throw e;
-          } catch (IOException e) {
-            log.error(
-                "Updating watch entry for user {} in project {} failed.",
-                a.userName(),
-                newProjectKey.get(),
-                e);
-            throw e;
-          }
         }
       }
+      if (oldProjectWatches.isEmpty()) {
+        continue;
+      }
+      try {
+        String updateMessage =
+            String.format("Remove and add watch entries for %s", describe(renames));
+        accountsUpdateProvider
+            .get()
+            .update(
+                updateMessage,
+                accountId,
+                u ->
+                    u.deleteProjectWatches(oldProjectWatches)
+                        .updateProjectWatches(newProjectWatches));
+      } catch (ConfigInvalidException e) {
+        log.error(
+            "Updating watch entries for user {} failed. Watch config found invalid.",
+            a.userName(),
+            e);
+        throw e;
+      } catch (IOException e) {
+        log.error("Updating watch entries for user {} failed.", a.userName(), e);
+        throw e;
+      }
     }
   }
+
+  private static Map<Project.NameKey, Project.NameKey> reverse(
+      Map<Project.NameKey, Project.NameKey> renames) {
+    return ImmutableBiMap.copyOf(renames).inverse();
+  }
+
+  private static String describe(Map<Project.NameKey, Project.NameKey> renames) {
+    return renames.entrySet().stream()
+        .map(e -> e.getKey().get() + " -> " + e.getValue().get())
+        .collect(Collectors.joining(", "));
+  }
 }
@@ -14,6 +14,7 @@
 
 package com.googlesource.gerrit.plugins.renameproject.database;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gerrit.entities.Change;
 import com.google.gerrit.entities.Project;
@@ -24,6 +25,7 @@ import com.googlesource.gerrit.plugins.renameproject.Configuration;
 import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -49,21 +51,49 @@ public class IndexUpdateHandler {
   public void updateIndex(
       Set<Change.Id> changeIds, Project.NameKey newProjectKey, ProgressMonitor pm)
       throws InterruptedException {
-    log.debug("Starting to index {} change(s).", changeIds.size());
+    updateIndex(changeIds, newProjectKey, config.getIndexThreads(), pm);
+  }
+
+  /** Reindexes the changes of a renamed project with a given number of threads. */
+  public void updateIndex(
+      Set<Change.Id> changeIds, Project.NameKey newProjectKey, int threads, ProgressMonitor pm)
+      throws InterruptedException {
+    updateIndex(ImmutableMap.of(newProjectKey, changeIds), threads, pm);
+  }
+
+  /** Reindexes the changes of several renamed projects through a single pool of threads. */
+  public void updateIndex(
+      Map<Project.NameKey, Set<Change.Id>> changeIdsByProject, ProgressMonitor pm)
+      throws InterruptedException {
+    updateIndex(changeIdsByProject, config.getIndexThreads(), pm);
+  }
+
+  private void updateIndex(
+      Map<Project.NameKey, Set<Change.Id>> changeIdsByProject, int threads, ProgressMonitor pm)
+      throws InterruptedException {
+    int changeCount = changeIdsByProject.values().stream().mapToInt(Set::size).sum();
+    log.debug("Starting to index {} change(s).", changeCount);
     ExecutorService executor =
         Executors.newFixedThreadPool(
-            config.getIndexThreads(),
+            Math.max(1, threads),
             new ThreadFactoryBuilder().setNameFormat("Rename-Index-%d").build());
-    pm.beginTask("Indexing changes", changeIds.size());
-    List<Callable<Boolean>> callableTasks = new ArrayList<>(changeIds.size());
-    for (Change.Id id : changeIds) {
-      callableTasks.add(new IndexTask(id, newProjectKey, pm));
+    pm.beginTask("Indexing changes", changeCount);
+    List<Callable<Boolean>> callableTasks = new ArrayList<>(changeCount);
+    for (Map.Entry<Project.NameKey, Set<Change.Id>> e : changeIdsByProject.entrySet()) {
+      for (Change.Id id : e.getValue()) {
+        callableTasks.add(new IndexTask(id, e.getKey(), pm));
+      }
+    }
+    List<Future<Boolean>> tasksCompleted;
+    try {
+      // if interrupted, the tasks still outstanding are cancelled
+      tasksCompleted = executor.invokeAll(callableTasks);
+    } finally {
+      executor.shutdown();
     }
-    List<Future<Boolean>> tasksCompleted = executor.invokeAll(callableTasks);
-    executor.shutdown();
 
     if (verifyAllTasksCompleted(tasksCompleted)) {
-      log.debug("Indexed {} change(s) successfully.", changeIds.size());
+      log.debug("Indexed {} change(s) successfully.", changeCount);
     }
   }
 
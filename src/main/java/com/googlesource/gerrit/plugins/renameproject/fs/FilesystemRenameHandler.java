@@ -14,20 +14,31 @@
 
 package com.googlesource.gerrit.plugins.renameproject.fs;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.renameproject.Configuration;
 import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache;
 import org.slf4j.Logger;
@@ -37,11 +48,15 @@ import org.slf4j.LoggerFactory;
 public class FilesystemRenameHandler {
   private static final Logger log = LoggerFactory.getLogger(FilesystemRenameHandler.class);
 
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
   private final GitRepositoryManager repoManager;
+  private final Configuration cfg;
 
   @Inject
-  public FilesystemRenameHandler(GitRepositoryManager repoManager) {
+  public FilesystemRenameHandler(GitRepositoryManager repoManager, Configuration cfg) {
     this.repoManager = repoManager;
+    this.cfg = cfg;
   }
 
   public void rename(
@@ -55,6 +70,211 @@ public class FilesystemRenameHandler {
     }
   }
 
+  /**
+   * Opens the repository under its new name so that it is registered in the repository cache, and
+   * preloads its refs, pack indexes and bitmap index. Failures are logged and otherwise ignored: a
+   * cold repository is slower to serve but still correct.
+   */
+  public void warmUp(Project.NameKey projectKey, ProgressMonitor pm) {
+    pm.beginTask("Warming up git repository");
+    try (Repository repo = repoManager.openRepository(projectKey);
+        ObjectReader reader = repo.newObjectReader()) {
+      int refs = repo.getRefDatabase().getRefs().size();
+      // Looking up an object that cannot exist forces every pack index to be loaded.
+      reader.has(ObjectId.zeroId());
+      reader.getBitmapIndex();
+      log.debug("Warmed up git repo {} with {} ref(s)", projectKey.get(), refs);
+    } catch (IOException e) {
+      log.warn("Failed to warm up git repo {}", projectKey.get(), e);
+    }
+  }
+
+  /**
+   * Renames the repository and moves its content under the base path of a storage tier. The
+   * repository location known to Gerrit becomes a symbolic link to the moved content. If positive,
+   * {@code moveRate} lowers the configured move rate for this move only.
+   */
+  public void moveToStorageTier(
+      Project.NameKey oldProjectKey,
+      Project.NameKey newProjectKey,
+      Path tierBasePath,
+      long moveRate,
+      ProgressMonitor pm)
+      throws IOException, RepositoryNotFoundException {
+    try (Repository repository = repoManager.openRepository(oldProjectKey)) {
+      File repoFile = repository.getDirectory();
+      RepositoryCache.close(repository);
+      Path tierTarget = tierBasePath.resolve(newProjectKey.get() + Constants.DOT_GIT_EXT);
+      if (Files.exists(tierTarget)) {
+        throw new IOException(
+            String.format("Storage tier location %s already exists", tierTarget.toString()));
+      }
+      Path target = newRepositoryPath(newProjectKey);
+      Path source = repoFile.toPath();
+      // the repository may already be a link to the content on another storage tier
+      Path content = source.toRealPath();
+      log.debug(
+          "Moving the content of {} to storage tier location {}", oldProjectKey.get(), tierTarget);
+      copyWithProgress(source, tierTarget, moveRate, pm);
+      try {
+        Files.createSymbolicLink(target, tierTarget);
+      } catch (IOException e) {
+        recursiveDelete(tierTarget);
+        throw new IOException("Failed to link the new git repo to its storage tier location.", e);
+      }
+      deleteMovedContent(source, content);
+    }
+  }
+
+  /**
+   * Deletes the original repository once its content is complete on the storage tier. The rename
+   * is not failed if this deletion fails, since reverting it would copy the content back over a
+   * partially deleted repository: the remaining files are reported to be removed manually.
+   */
+  private void deleteMovedContent(Path source, Path content) {
+    try {
+      if (!source.equals(content)) {
+        Files.delete(source);
+      }
+      recursiveDelete(content);
+    } catch (IOException e) {
+      log.error(
+          "Moved the git repo {} to its storage tier but failed to delete its original content,"
+              + " which must be removed manually",
+          source,
+          e);
+    }
+  }
+
+  /**
+   * Reverts {@link #moveToStorageTier}: copies the content back to the default location of the
+   * repository under its old name and removes the storage tier copy.
+   */
+  public void restoreFromStorageTier(
+      Project.NameKey newProjectKey, Project.NameKey oldProjectKey, ProgressMonitor pm)
+      throws IOException, RepositoryNotFoundException {
+    try (Repository repository = repoManager.openRepository(newProjectKey)) {
+      Path link = repository.getDirectory().toPath();
+      RepositoryCache.close(repository);
+      Path tierSource = link.toRealPath();
+      Path target = newRepositoryPath(oldProjectKey);
+      log.debug("Moving the content of {} back from {}", oldProjectKey.get(), tierSource);
+      copyWithProgress(tierSource, target, 0, pm);
+      Files.delete(link);
+      recursiveDelete(tierSource);
+    }
+  }
+
+  /** Total size in bytes of the files of the repository of the project. */
+  public long getRepositorySize(Project.NameKey projectKey) throws IOException {
+    Path dir;
+    try (Repository repo = repoManager.openRepository(projectKey)) {
+      dir = repo.getDirectory().toPath();
+    }
+    try (Stream<Path> files = Files.walk(dir, FileVisitOption.FOLLOW_LINKS)) {
+      return files.filter(Files::isRegularFile).mapToLong(FilesystemRenameHandler::size).sum();
+    }
+  }
+
+  private static long size(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      // the file was removed by a concurrent gc
+      return 0;
+    }
+  }
+
+  private Path newRepositoryPath(Project.NameKey projectKey) throws IOException {
+    try (Repository newRepo = repoManager.createRepository(projectKey)) {
+      File target = newRepo.getDirectory();
+      RepositoryCache.close(newRepo);
+      // delete the created repo, we just needed the absolute path from repo manager
+      recursiveDelete(target.toPath());
+      return target.toPath();
+    }
+  }
+
+  private void copyWithProgress(Path source, Path target, long moveRate, ProgressMonitor pm)
+      throws IOException {
+    List<Path> paths;
+    try (Stream<Path> dir = Files.walk(source, FileVisitOption.FOLLOW_LINKS)) {
+      paths = dir.sorted().collect(Collectors.toList());
+    }
+    RateLimiter limiter = null;
+    pm.beginTask(String.format("Copying git repository to %s", target), paths.size());
+    try {
+      for (Path path : paths) {
+        if (Thread.interrupted()) {
+          throw new InterruptedIOException("Copy of the git repository interrupted");
+        }
+        Path dest = target.resolve(source.relativize(path).toString());
+        limiter = applyMoveRate(limiter, moveRate);
+        if (Files.isDirectory(path)) {
+          Files.createDirectories(dest);
+        } else {
+          copyFile(path, dest, limiter);
+        }
+        pm.update(1);
+      }
+    } catch (IOException e) {
+      if (Files.exists(target)) {
+        recursiveDelete(target);
+      }
+      throw new IOException(String.format("Failed to copy the git repo to %s.", target), e);
+    }
+  }
+
+  /**
+   * Applies the current move rate, which may have been reloaded since the previous file, lowered to
+   * the rate requested for this move if any.
+   */
+  private RateLimiter applyMoveRate(RateLimiter limiter, long moveRate) {
+    long rate = cfg.getStorageMoveRate();
+    if (moveRate > 0) {
+      rate = rate > 0 ? Math.min(rate, moveRate) : moveRate;
+    }
+    if (rate <= 0) {
+      return null;
+    }
+    if (limiter == null) {
+      return RateLimiter.create(rate);
+    }
+    if (limiter.getRate() != rate) {
+      limiter.setRate(rate);
+    }
+    return limiter;
+  }
+
+  private static void copyFile(Path source, Path target, RateLimiter limiter) throws IOException {
+    if (limiter == null) {
+      Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+      return;
+    }
+    byte[] buf = new byte[COPY_BUFFER_SIZE];
+    try (InputStream in = Files.newInputStream(source);
+        OutputStream out = Files.newOutputStream(target)) {
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        limiter.acquire(n);
+        out.write(buf, 0, n);
+      }
+    }
+    copyAttributes(source, target);
+  }
+
+  /** Copies the attributes that {@link StandardCopyOption#COPY_ATTRIBUTES} would have kept. */
+  private static void copyAttributes(Path source, Path target) throws IOException {
+    PosixFileAttributeView sourceView =
+        Files.getFileAttributeView(source, PosixFileAttributeView.class);
+    PosixFileAttributeView targetView =
+        Files.getFileAttributeView(target, PosixFileAttributeView.class);
+    if (sourceView != null && targetView != null) {
+      targetView.setPermissions(sourceView.readAttributes().permissions());
+    }
+    Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+  }
+
   private void renameGitRepository(
       File source, Project.NameKey newProjectKey, Project.NameKey oldProjectKey)
       throws IOException {
@@ -74,12 +294,22 @@ public class FilesystemRenameHandler {
     }
   }
 
+  /** Deletes a file tree. Symbolic links are deleted themselves, never the files they point to. */
   private void recursiveDelete(Path oldFile) throws IOException {
-    try (Stream<Path> dir = Files.walk(oldFile, FileVisitOption.FOLLOW_LINKS)) {
-      dir.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    List<Path> paths;
+    try (Stream<Path> dir = Files.walk(oldFile)) {
+      paths = dir.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
     } catch (IOException e) {
       log.error("Failed to delete {}", oldFile.getFileName(), e);
       throw e;
     }
+    for (Path path : paths) {
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException e) {
+        log.error("Failed to delete {}", path, e);
+        throw e;
+      }
+    }
   }
 }
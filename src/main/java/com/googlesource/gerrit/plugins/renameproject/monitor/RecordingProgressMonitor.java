@@ -0,0 +1,74 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.monitor;
+
+import java.util.concurrent.TimeUnit;
+
+/** Keeps the progress of the current task, for it to be polled from another thread. */
+public class RecordingProgressMonitor implements ProgressMonitor {
+  private String task;
+  private int totalWork;
+  private int completedWork;
+  private long taskStartedAt;
+
+  @Override
+  public synchronized void beginTask(String title, int totalWork) {
+    this.task = title;
+    this.totalWork = totalWork;
+    this.completedWork = 0;
+    this.taskStartedAt = System.nanoTime();
+  }
+
+  @Override
+  public void beginTask(String title) {
+    beginTask(title, 0);
+  }
+
+  @Override
+  public synchronized void update(int completed) {
+    completedWork += completed;
+  }
+
+  @Override
+  public void close() {
+    // Keep the last task for it to be reported.
+  }
+
+  public synchronized String getTask() {
+    return task;
+  }
+
+  /** Total work units of the current task, 0 if unknown. */
+  public synchronized int getTotalWork() {
+    return totalWork;
+  }
+
+  public synchronized int getCompletedWork() {
+    return completedWork;
+  }
+
+  /**
+   * Estimates the number of seconds left in the current task from its throughput so far, or
+   * returns -1 if it cannot be estimated yet.
+   */
+  public synchronized long getRemainingSeconds() {
+    if (totalWork <= 0 || completedWork <= 0) {
+      return -1;
+    }
+    long elapsed = System.nanoTime() - taskStartedAt;
+    long remaining = elapsed * Math.max(0, totalWork - completedWork) / completedWork;
+    return TimeUnit.NANOSECONDS.toSeconds(remaining);
+  }
+}
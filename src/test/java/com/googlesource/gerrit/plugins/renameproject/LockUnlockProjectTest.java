@@ -18,6 +18,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.google.gerrit.acceptance.LightweightPluginDaemonTest;
 import com.google.gerrit.acceptance.TestPlugin;
+import com.google.gerrit.acceptance.config.GerritConfig;
 import com.google.gerrit.extensions.client.ProjectState;
 import com.google.inject.Inject;
 import java.io.IOException;
@@ -31,6 +32,7 @@ import org.junit.Test;
 public class LockUnlockProjectTest extends LightweightPluginDaemonTest {
 
   @Inject private LockUnlockProject lockUnlockInstance;
+  @Inject private ProjectLockTable lockTable;
 
   @Test
   public void testLockUnlockSucceeds() throws IOException, ConfigInvalidException {
@@ -43,4 +45,15 @@ public class LockUnlockProjectTest extends LightweightPluginDaemonTest {
     assertThat(projectCache.get(project).get().getProject().getState())
         .isEqualTo(ProjectState.ACTIVE);
   }
+
+  @Test
+  @GerritConfig(name = "plugin.rename-project.lockMode", value = "MEMORY")
+  public void testInMemoryLockUnlockSucceeds() throws IOException, ConfigInvalidException {
+    lockUnlockInstance.lock(project);
+    assertThat(lockTable.isLocked(project)).isTrue();
+    assertThat(projectCache.get(project).get().getProject().getState())
+        .isEqualTo(ProjectState.ACTIVE);
+    lockUnlockInstance.unlock(project);
+    assertThat(lockTable.isLocked(project)).isFalse();
+  }
 }
@@ -0,0 +1,62 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.Test;
+
+public class MaintenanceWindowTest {
+  private static final ZonedDateTime NOON =
+      ZonedDateTime.of(2026, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+  @Test
+  public void testRenameInsideWindowStartsImmediately() {
+    MaintenanceWindow window = MaintenanceWindow.parse("11:00-13:00");
+    assertThat(window.nextOpening(NOON)).isEqualTo(NOON);
+  }
+
+  @Test
+  public void testRenameBeforeWindowWaitsForItToOpen() {
+    MaintenanceWindow window = MaintenanceWindow.parse("22:00-23:30");
+    assertThat(window.nextOpening(NOON)).isEqualTo(NOON.withHour(22));
+  }
+
+  @Test
+  public void testRenameAfterWindowWaitsForNextDay() {
+    MaintenanceWindow window = MaintenanceWindow.parse("01:00-05:00");
+    assertThat(window.contains(NOON)).isFalse();
+    assertThat(window.nextOpening(NOON)).isEqualTo(NOON.plusDays(1).withHour(1));
+  }
+
+  @Test
+  public void testWindowSpanningMidnight() {
+    MaintenanceWindow window = MaintenanceWindow.parse("23:00-02:00");
+    assertThat(window.contains(NOON.withHour(23).withMinute(30))).isTrue();
+    assertThat(window.contains(NOON.withHour(1))).isTrue();
+    assertThat(window.contains(NOON.withHour(2))).isFalse();
+    assertThat(window.nextOpening(NOON)).isEqualTo(NOON.withHour(23));
+  }
+
+  @Test
+  public void testInvalidWindowIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> MaintenanceWindow.parse("01:00"));
+    assertThrows(IllegalArgumentException.class, () -> MaintenanceWindow.parse("1am-5am"));
+    assertThrows(IllegalArgumentException.class, () -> MaintenanceWindow.parse("01:00-01:00"));
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.server.git.WorkQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RenameAdmissionTest {
+  private static final Account.Id USER = Account.id(1000000);
+  private static final Account.Id OTHER_USER = Account.id(1000001);
+
+  @Mock private Configuration cfg;
+  @Mock private WorkQueue workQueue;
+  @Mock private RenameOperations operations;
+
+  private RenameAdmission admission;
+
+  @Before
+  public void setUp() {
+    admission = new RenameAdmission(cfg, workQueue, operations);
+  }
+
+  @Test
+  public void testQuotaRejectsRenamesBeyondDailyLimit() throws Exception {
+    when(cfg.getUserRenameQuota()).thenReturn(2);
+    admission.chargeQuota(USER, 1);
+    admission.chargeQuota(USER, 1);
+
+    RenameRejectedException e =
+        assertThrows(RenameRejectedException.class, () -> admission.chargeQuota(USER, 1));
+    Matcher retryAfter = Pattern.compile("retry after (\\d+) seconds").matcher(e.getMessage());
+    assertThat(retryAfter.find()).isTrue();
+    long retryAfterSeconds = Long.parseLong(retryAfter.group(1));
+    assertThat(retryAfterSeconds).isAtMost(TimeUnit.DAYS.toSeconds(1) + 1);
+    assertThat(retryAfterSeconds).isGreaterThan(TimeUnit.DAYS.toSeconds(1) - 60);
+    admission.chargeQuota(OTHER_USER, 1);
+  }
+
+  @Test
+  public void testQuotaCountsEveryProjectOfABulkRename() throws Exception {
+    when(cfg.getUserRenameQuota()).thenReturn(3);
+    admission.chargeQuota(USER, 2);
+
+    assertThrows(RenameRejectedException.class, () -> admission.chargeQuota(USER, 2));
+    admission.chargeQuota(USER, 1);
+  }
+
+  @Test
+  public void testTooManyActiveRenamesAreRejectedWithRetryAfter() {
+    when(cfg.getMaxActiveRenames()).thenReturn(1);
+    when(cfg.getAdmissionRetryAfter()).thenReturn(300);
+    when(operations.all()).thenReturn(ImmutableList.of(mock(RenameOperation.class)));
+
+    RenameRejectedException e =
+        assertThrows(RenameRejectedException.class, admission::assertNotBusy);
+    assertThat(e)
+        .hasMessageThat()
+        .endsWith("1 rename(s) are already running, retry after 300 seconds");
+  }
+
+  @Test
+  public void testNoLimitsAdmitsRenames() throws Exception {
+    when(operations.all()).thenReturn(ImmutableList.of());
+    assertThat(admission.checkLoad().isPresent()).isFalse();
+    admission.assertNotBusy();
+  }
+}
@@ -35,6 +35,7 @@ import com.google.gerrit.acceptance.TestPlugin;
 import com.google.gerrit.acceptance.UseLocalDisk;
 import com.google.gerrit.acceptance.UseSsh;
 import com.google.gerrit.acceptance.config.GerritConfig;
+import com.google.gerrit.acceptance.testsuite.project.ProjectOperations;
 import com.google.gerrit.acceptance.testsuite.request.RequestScopeOperations;
 import com.google.gerrit.entities.Change.Id;
 import com.google.gerrit.entities.Project;
@@ -82,6 +83,7 @@ public class RenameIT extends LightweightPluginDaemonTest {
   private static final String RENAME_REGEX = "[a-zA-Z]+";
   private static final String CHANGE_LIMIT = "0";
 
+  @Inject private ProjectOperations projectOperations;
   @Inject private RequestScopeOperations requestScopeOperations;
 
   @Inject
@@ -101,6 +103,71 @@ public class RenameIT extends LightweightPluginDaemonTest {
     assertThat(queryProvider.get().byProject(Project.nameKey(NEW_PROJECT_NAME))).isNotEmpty();
   }
 
+  @Test
+  @UseLocalDisk
+  public void testBulkRenameViaSshSuccessful() throws Exception {
+    createChange();
+    Project.NameKey otherProject = projectOperations.newProject().create();
+    String otherNewName = "otherNewProject";
+    adminSshSession.exec(
+        String.join(
+            " ",
+            PLUGIN_NAME,
+            project.get(),
+            NEW_PROJECT_NAME,
+            otherProject.get(),
+            otherNewName));
+
+    adminSshSession.assertSuccess();
+    assertThat(projectCache.get(Project.nameKey(NEW_PROJECT_NAME)).isPresent()).isTrue();
+    assertThat(projectCache.get(Project.nameKey(otherNewName)).isPresent()).isTrue();
+    assertThat(projectCache.get(otherProject).isPresent()).isFalse();
+    assertThat(queryProvider.get().byProject(project)).isEmpty();
+    assertThat(queryProvider.get().byProject(Project.nameKey(NEW_PROJECT_NAME))).isNotEmpty();
+  }
+
+  @Test
+  @UseLocalDisk
+  public void testBulkRenameToSameNameFails() throws Exception {
+    Project.NameKey otherProject = projectOperations.newProject().create();
+    adminSshSession.exec(
+        String.join(
+            " ",
+            PLUGIN_NAME,
+            project.get(),
+            NEW_PROJECT_NAME,
+            otherProject.get(),
+            NEW_PROJECT_NAME));
+
+    adminSshSession.assertFailure();
+    assertThat(projectCache.get(Project.nameKey(NEW_PROJECT_NAME)).isPresent()).isFalse();
+    assertThat(projectCache.get(project).isPresent()).isTrue();
+    assertThat(projectCache.get(otherProject).isPresent()).isTrue();
+  }
+
+  @Test
+  @UseLocalDisk
+  public void testBulkRenameDryRunFails() throws Exception {
+    Project.NameKey otherProject = projectOperations.newProject().create();
+    String otherNewName = "otherNewProject";
+    adminSshSession.exec(
+        String.join(
+            " ",
+            PLUGIN_NAME,
+            "--dry-run",
+            project.get(),
+            NEW_PROJECT_NAME,
+            otherProject.get(),
+            otherNewName));
+
+    adminSshSession.assertFailure();
+    assertThat(adminSshSession.getError()).contains("--dry-run cannot be used");
+    assertThat(projectCache.get(project).isPresent()).isTrue();
+    assertThat(projectCache.get(otherProject).isPresent()).isTrue();
+    assertThat(projectCache.get(Project.nameKey(NEW_PROJECT_NAME)).isPresent()).isFalse();
+    assertThat(projectCache.get(Project.nameKey(otherNewName)).isPresent()).isFalse();
+  }
+
   @Test
   @UseLocalDisk
   public void testRenameReplicationViaSshNotAdminUser() throws Exception {
@@ -122,6 +189,67 @@ public class RenameIT extends LightweightPluginDaemonTest {
     assertThat(projectState.isPresent()).isTrue();
   }
 
+  @Test
+  @UseLocalDisk
+  @GerritConfig(name = "plugin.rename-project.maxIndexThreads", value = "2")
+  public void testRenameViaSshWithIndexThreadsSuccessful() throws Exception {
+    createChange();
+    adminSshSession.exec(
+        PLUGIN_NAME + " --index-threads 2 " + project.get() + " " + NEW_PROJECT_NAME);
+
+    adminSshSession.assertSuccess();
+    assertThat(queryProvider.get().byProject(Project.nameKey(NEW_PROJECT_NAME))).isNotEmpty();
+  }
+
+  @Test
+  @UseLocalDisk
+  @GerritConfig(name = "plugin.rename-project.maxIndexThreads", value = "2")
+  public void testRenameViaSshWithTooManyIndexThreadsFail() throws Exception {
+    createChange();
+    adminSshSession.exec(
+        PLUGIN_NAME + " --index-threads 3 " + project.get() + " " + NEW_PROJECT_NAME);
+
+    adminSshSession.assertFailure();
+    assertThat(adminSshSession.getError()).contains("indexThreads must be between 1 and 2");
+    assertThat(projectCache.get(Project.nameKey(NEW_PROJECT_NAME)).isPresent()).isFalse();
+  }
+
+  @Test
+  @UseLocalDisk
+  public void testRenameViaSshWithBackgroundReindexNotAllowedFail() throws Exception {
+    createChange();
+    adminSshSession.exec(
+        PLUGIN_NAME + " --background-reindex " + project.get() + " " + NEW_PROJECT_NAME);
+
+    adminSshSession.assertFailure();
+    assertThat(projectCache.get(Project.nameKey(NEW_PROJECT_NAME)).isPresent()).isFalse();
+  }
+
+  @Test
+  @UseLocalDisk
+  public void testRenameWithChildrenViaSshFail() throws Exception {
+    Project.NameKey child = projectOperations.newProject().parent(project).create();
+    adminSshSession.exec(PLUGIN_NAME + " " + project.get() + " " + NEW_PROJECT_NAME);
+
+    adminSshSession.assertFailure();
+    assertThat(adminSshSession.getError()).contains("it has children: " + child.get());
+  }
+
+  @Test
+  @UseLocalDisk
+  public void testRenameWithChildrenViaSshReparentsChildren() throws Exception {
+    Project.NameKey child = projectOperations.newProject().parent(project).create();
+    Project.NameKey otherChild = projectOperations.newProject().parent(project).create();
+    adminSshSession.exec(
+        PLUGIN_NAME + " --reparent-children " + project.get() + " " + NEW_PROJECT_NAME);
+
+    adminSshSession.assertSuccess();
+    Project.NameKey newProjectKey = Project.nameKey(NEW_PROJECT_NAME);
+    assertThat(projectCache.get(child).get().getProject().getParent()).isEqualTo(newProjectKey);
+    assertThat(projectCache.get(otherChild).get().getProject().getParent())
+        .isEqualTo(newProjectKey);
+  }
+
   @Test
   @UseLocalDisk
   public void testRenameViaSshWithEmptyNewName() throws Exception {
@@ -228,6 +356,22 @@ public class RenameIT extends LightweightPluginDaemonTest {
     assertThat(changeIdProjectCache.getIfPresent(changeID)).isNull();
   }
 
+  @Test
+  @UseLocalDisk
+  @GerritConfig(name = "plugin.rename-project.changeIdCacheUpdate", value = "REWRITE")
+  public void testRenameRewroteOldChangeIdLinkInCaches() throws Exception {
+    Result result = createChange();
+    String oldProject = project.get();
+
+    Id changeID = result.getChange().getId();
+    changeIdProjectCache.put(changeID, oldProject);
+
+    adminSshSession.exec(PLUGIN_NAME + " " + oldProject + " " + NEW_PROJECT_NAME);
+    adminSshSession.assertSuccess();
+
+    assertThat(changeIdProjectCache.getIfPresent(changeID)).isEqualTo(NEW_PROJECT_NAME);
+  }
+
   @Test
   @UseLocalDisk
   @GerritConfig(name = "plugin.rename-project.url", value = URL)
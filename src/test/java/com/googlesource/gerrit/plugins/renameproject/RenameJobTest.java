@@ -0,0 +1,51 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Project;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class RenameJobTest {
+  private static final Account.Id ACCOUNT = Account.id(1000000);
+
+  @Test
+  public void testJobsAreOrderedByPriorityThenSizeThenAge() {
+    RenameJob large = newJob("large", 0, 500, 1);
+    RenameJob small = newJob("small", 0, 5, 2);
+    RenameJob older = newJob("older", 0, 5, 1);
+    RenameJob urgent = newJob("urgent", 10, 5000, 3);
+
+    List<String> order =
+        Stream.of(large, small, older, urgent)
+            .sorted(RenameJob.ORDER)
+            .map(RenameJob::getId)
+            .collect(Collectors.toList());
+
+    assertThat(order).containsExactly("urgent", "older", "small", "large").inOrder();
+  }
+
+  private static RenameJob newJob(String id, int priority, int changeCount, long submittedAt) {
+    RenameProject.Input input = new RenameProject.Input();
+    input.name = id + "-renamed";
+    input.priority = priority;
+    return new RenameJob(id, Project.nameKey(id), input, ACCOUNT, changeCount, submittedAt);
+  }
+}
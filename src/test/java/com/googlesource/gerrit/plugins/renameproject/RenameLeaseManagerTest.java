@@ -0,0 +1,157 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.git.WorkQueue;
+import com.googlesource.gerrit.plugins.renameproject.RenameProject.Step;
+import com.googlesource.gerrit.plugins.renameproject.database.DatabaseRenameHandler;
+import com.googlesource.gerrit.plugins.renameproject.monitor.NoopMonitor;
+import java.util.Set;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RenameLeaseManagerTest {
+  private static final Project.NameKey OLD_PROJECT = Project.nameKey("oldProject");
+  private static final Project.NameKey NEW_PROJECT = Project.nameKey("newProject");
+  private static final Set<Change.Id> CHANGE_IDS = ImmutableSet.of(Change.id(1));
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Mock private Configuration cfg;
+  @Mock private WorkQueue workQueue;
+  @Mock private GitRepositoryManager repoManager;
+  @Mock private DatabaseRenameHandler dbHandler;
+  @Mock private RevertRenameProject revertRenameProject;
+  @Mock private LockUnlockProject lockUnlockProject;
+
+  private RenameOperation op;
+
+  @Before
+  public void setUp() {
+    when(cfg.getNodeId()).thenReturn("node-1");
+    RenameProject.Input input = new RenameProject.Input();
+    input.name = NEW_PROJECT.get();
+    op = new RenameOperation(OLD_PROJECT, input, CHANGE_IDS);
+  }
+
+  @Test
+  public void testRecoveryRevertsJournalledSteps() throws Exception {
+    RenameLeaseManager leaseManager = newLeaseManager();
+    leaseManager.acquire(op);
+    leaseManager.stepStarted(op, Step.FILESYSTEM);
+    leaseManager.stepCompleted(op, Step.FILESYSTEM);
+    leaseManager.stepStarted(op, Step.CACHE);
+    when(repoManager.openRepository(NEW_PROJECT)).thenReturn(mock(Repository.class));
+    when(repoManager.openRepository(OLD_PROJECT))
+        .thenThrow(new RepositoryNotFoundException(OLD_PROJECT.get()));
+    when(dbHandler.getChangeIds(NEW_PROJECT)).thenReturn(CHANGE_IDS);
+
+    // the server restarted in the middle of the cache step
+    newLeaseManager().recover(true);
+
+    verify(revertRenameProject)
+        .performRevert(
+            ImmutableList.of(Step.FILESYSTEM, Step.CACHE),
+            CHANGE_IDS,
+            OLD_PROJECT,
+            NEW_PROJECT,
+            NoopMonitor.INSTANCE);
+  }
+
+  @Test
+  public void testRecoveryDoesNotMoveBackRepositoryThatWasNotMoved() throws Exception {
+    RenameLeaseManager leaseManager = newLeaseManager();
+    leaseManager.acquire(op);
+    leaseManager.stepStarted(op, Step.FILESYSTEM);
+    when(repoManager.openRepository(NEW_PROJECT))
+        .thenThrow(new RepositoryNotFoundException(NEW_PROJECT.get()));
+    when(dbHandler.getChangeIds(OLD_PROJECT)).thenReturn(CHANGE_IDS);
+
+    newLeaseManager().recover(true);
+
+    verify(revertRenameProject)
+        .performRevert(
+            ImmutableList.of(), CHANGE_IDS, OLD_PROJECT, NEW_PROJECT, NoopMonitor.INSTANCE);
+  }
+
+  @Test
+  public void testRecoveryFinishesCommittedRename() throws Exception {
+    RenameLeaseManager leaseManager = newLeaseManager();
+    leaseManager.acquire(op);
+    for (Step step : ImmutableList.of(Step.FILESYSTEM, Step.CACHE, Step.DATABASE, Step.INDEX)) {
+      leaseManager.stepStarted(op, step);
+      leaseManager.stepCompleted(op, step);
+    }
+    leaseManager.committed(op);
+
+    newLeaseManager().recover(true);
+
+    verify(lockUnlockProject).unlock(NEW_PROJECT);
+    verify(revertRenameProject, never())
+        .performRevert(any(), any(), any(), any(), eq(NoopMonitor.INSTANCE));
+  }
+
+  @Test
+  public void testLeaseIsKeptWhenCommittedRenameCannotBeFinished() throws Exception {
+    RenameLeaseManager leaseManager = newLeaseManager();
+    leaseManager.acquire(op);
+    leaseManager.committed(op);
+    doThrow(new ConfigInvalidException("invalid project.config"))
+        .doNothing()
+        .when(lockUnlockProject)
+        .unlock(NEW_PROJECT);
+
+    RenameLeaseManager recovering = newLeaseManager();
+    recovering.recover(true);
+    recovering.recover(true);
+    recovering.recover(true);
+
+    verify(lockUnlockProject, times(2)).unlock(NEW_PROJECT);
+  }
+
+  private RenameLeaseManager newLeaseManager() {
+    return new RenameLeaseManager(
+        tempFolder.getRoot().toPath(),
+        cfg,
+        workQueue,
+        repoManager,
+        dbHandler,
+        revertRenameProject,
+        lockUnlockProject);
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RenameLocksTest {
+  private static final Project.NameKey PROJECT_A = Project.nameKey("projectA");
+  private static final Project.NameKey PROJECT_B = Project.nameKey("projectB");
+  private static final Project.NameKey PROJECT_C = Project.nameKey("projectC");
+
+  @Mock private Configuration cfg;
+
+  private RenameLocks renameLocks;
+
+  @Before
+  public void setUp() {
+    when(cfg.getRenameLockTimeout()).thenReturn(0);
+    renameLocks = new RenameLocks(cfg);
+  }
+
+  @Test
+  public void testConflictingRenameIsRejected() throws Exception {
+    RenameLocks.Held held = renameLocks.acquire(PROJECT_A, PROJECT_B);
+    assertThat(tryAcquireInOtherThread(PROJECT_B, PROJECT_C)).isFalse();
+    held.release();
+    assertThat(tryAcquireInOtherThread(PROJECT_B, PROJECT_C)).isTrue();
+  }
+
+  @Test
+  public void testUnrelatedRenamesDoNotConflict() throws Exception {
+    Project.NameKey[] namespace = new Project.NameKey[4096];
+    for (int i = 0; i < namespace.length; i++) {
+      namespace[i] = Project.nameKey("namespace/project" + i);
+    }
+    RenameLocks.Held held = renameLocks.acquire(namespace);
+    assertThat(tryAcquireInOtherThread(PROJECT_B, PROJECT_C)).isTrue();
+    held.release();
+  }
+
+  @Test
+  public void testHeldNamesCanBeLockedAgainByTheSameThread() throws Exception {
+    RenameLocks.Held held = renameLocks.acquire(PROJECT_A, PROJECT_B);
+    RenameLocks.Held again = renameLocks.acquire(PROJECT_A, PROJECT_B);
+    assertThat(tryAcquireInOtherThread(PROJECT_A, PROJECT_C)).isFalse();
+    again.release();
+    // the names are released by the outermost holder only
+    assertThat(tryAcquireInOtherThread(PROJECT_A, PROJECT_C)).isFalse();
+    held.release();
+    assertThat(tryAcquireInOtherThread(PROJECT_A, PROJECT_C)).isTrue();
+  }
+
+  private boolean tryAcquireInOtherThread(Project.NameKey oldKey, Project.NameKey newKey)
+      throws Exception {
+    return CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                renameLocks.acquire(oldKey, newKey).release();
+                return true;
+              } catch (ResourceConflictException e) {
+                return false;
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            })
+        .get();
+  }
+}
@@ -0,0 +1,53 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.project.ProjectCache;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RenameNamespaceTest {
+  @Mock private ProjectCache projectCache;
+  @Mock private BulkRenameProject bulkRenameProject;
+  @Mock private RenameProject renameProject;
+
+  @Test
+  public void testPlanRenamesOnlyProjectsUnderNamespace() {
+    when(projectCache.all())
+        .thenReturn(
+            ImmutableSortedSet.of(
+                Project.nameKey("teamA"),
+                Project.nameKey("teamA/project1"),
+                Project.nameKey("teamA/sub/project2"),
+                Project.nameKey("teamAB/project3")));
+    RenameNamespace renameNamespace =
+        new RenameNamespace(projectCache, bulkRenameProject, renameProject);
+
+    assertThat(renameNamespace.plan("teamA/", "org/teamA/"))
+        .containsExactly(
+            Project.nameKey("teamA/project1"),
+            "org/teamA/project1",
+            Project.nameKey("teamA/sub/project2"),
+            "org/teamA/sub/project2");
+  }
+}
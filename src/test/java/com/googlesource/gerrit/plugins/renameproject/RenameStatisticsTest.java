@@ -0,0 +1,42 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.truth.Truth8.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RenameStatisticsTest {
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testEstimateIsUnknownUntilFirstRename() throws Exception {
+    RenameStatistics statistics = new RenameStatistics(tempFolder.getRoot().toPath());
+    assertThat(statistics.estimateSeconds(100)).isEmpty();
+  }
+
+  @Test
+  public void testEstimateScalesWithChangesAndSurvivesRestart() throws Exception {
+    RenameStatistics statistics = new RenameStatistics(tempFolder.getRoot().toPath());
+    // 99 changes and the repository in 10 seconds, 100 ms per unit of work
+    statistics.record(99, 10_000);
+
+    assertThat(statistics.estimateSeconds(999)).hasValue(100L);
+    RenameStatistics reloaded = new RenameStatistics(tempFolder.getRoot().toPath());
+    assertThat(reloaded.estimateSeconds(999)).hasValue(100L);
+  }
+}
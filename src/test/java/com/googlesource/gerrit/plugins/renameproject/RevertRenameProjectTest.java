@@ -28,6 +28,7 @@ import com.google.gerrit.extensions.common.ChangeInfo;
 import com.google.gerrit.server.project.ProjectResource;
 import com.google.gerrit.server.project.ProjectState;
 import com.googlesource.gerrit.plugins.renameproject.RenameProject.Step;
+import com.googlesource.gerrit.plugins.renameproject.database.IndexUpdateHandler;
 import com.googlesource.gerrit.plugins.renameproject.monitor.ProgressMonitor;
 import java.util.Set;
 import org.junit.Before;
@@ -47,6 +48,7 @@ public class RevertRenameProjectTest extends LightweightPluginDaemonTest {
   private Project.NameKey newProjectKey;
   private ProgressMonitor pm;
   private ProjectResource oldRsrc;
+  private RenameOperation op;
 
   @Before
   public void init() {
@@ -67,12 +69,13 @@ public class RevertRenameProjectTest extends LightweightPluginDaemonTest {
   public void testRevertFromFsHandler() throws Exception {
     Result result = createChange();
     Set<Change.Id> changeIds = renameProject.getChanges(oldRsrc, pm);
+    op = newOperation(changeIds);
 
-    renameProject.fsRenameStep(oldProjectKey, newProjectKey, pm);
+    renameProject.fsRenameStep(op, pm);
     assertRenamed(result);
 
     revertRenameProject.performRevert(
-        renameProject.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
+        op.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
     assertReverted();
   }
 
@@ -81,13 +84,14 @@ public class RevertRenameProjectTest extends LightweightPluginDaemonTest {
   public void testRevertFromCacheHandler() throws Exception {
     Result result = createChange();
     Set<Change.Id> changeIds = renameProject.getChanges(oldRsrc, pm);
+    op = newOperation(changeIds);
 
-    renameProject.fsRenameStep(oldProjectKey, newProjectKey, pm);
-    renameProject.cacheRenameStep(oldProjectKey, newProjectKey);
+    renameProject.fsRenameStep(op, pm);
+    renameProject.cacheRenameStep(op);
     assertRenamed(result);
 
     revertRenameProject.performRevert(
-        renameProject.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
+        op.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
     assertReverted();
   }
 
@@ -96,14 +100,15 @@ public class RevertRenameProjectTest extends LightweightPluginDaemonTest {
   public void testRevertFromDbHandler() throws Exception {
     Result result = createChange();
     Set<Change.Id> changeIds = renameProject.getChanges(oldRsrc, pm);
+    op = newOperation(changeIds);
 
-    renameProject.fsRenameStep(oldProjectKey, newProjectKey, pm);
-    renameProject.cacheRenameStep(oldProjectKey, newProjectKey);
-    renameProject.dbRenameStep(oldProjectKey, newProjectKey, pm);
+    renameProject.fsRenameStep(op, pm);
+    renameProject.cacheRenameStep(op);
+    renameProject.dbRenameStep(op, pm);
     assertRenamed(result);
 
     revertRenameProject.performRevert(
-        renameProject.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
+        op.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
     assertReverted();
   }
 
@@ -112,18 +117,49 @@ public class RevertRenameProjectTest extends LightweightPluginDaemonTest {
   public void testRevertFromIndexHandler() throws Exception {
     Result result = createChange();
     Set<Change.Id> changeIds = renameProject.getChanges(oldRsrc, pm);
+    op = newOperation(changeIds);
 
-    renameProject.fsRenameStep(oldProjectKey, newProjectKey, pm);
-    renameProject.cacheRenameStep(oldProjectKey, newProjectKey);
-    renameProject.dbRenameStep(oldProjectKey, newProjectKey, pm);
-    renameProject.indexRenameStep(changeIds, oldProjectKey, newProjectKey, pm);
+    renameProject.fsRenameStep(op, pm);
+    renameProject.cacheRenameStep(op);
+    renameProject.dbRenameStep(op, pm);
+    renameProject.indexRenameStep(op, pm);
     assertRenamed(result);
 
     revertRenameProject.performRevert(
-        renameProject.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
+        op.getStepsPerformed(), changeIds, oldProjectKey, newProjectKey, pm);
     assertReverted();
   }
 
+  @Test
+  @UseLocalDisk
+  public void testRevertOfInterruptedIndexStep() throws Exception {
+    Result result = createChange();
+    Set<Change.Id> changeIds = renameProject.getChanges(oldRsrc, pm);
+    op = newOperation(changeIds);
+
+    renameProject.fsRenameStep(op, pm);
+    renameProject.cacheRenameStep(op);
+    renameProject.dbRenameStep(op, pm);
+    // the changes were reindexed, but the step was interrupted before it completed
+    renameProject.logStartedStep(op, Step.INDEX);
+    plugin
+        .getSysInjector()
+        .getInstance(IndexUpdateHandler.class)
+        .updateIndex(changeIds, newProjectKey, pm);
+    assertRenamed(result);
+    assertThat(op.getStepsPerformed()).doesNotContain(Step.INDEX);
+
+    revertRenameProject.performRevert(
+        op.getStepsStarted(), changeIds, oldProjectKey, newProjectKey, pm);
+    assertReverted();
+  }
+
+  private RenameOperation newOperation(Set<Change.Id> changeIds) {
+    RenameProject.Input input = new RenameProject.Input();
+    input.name = NEW_PROJECT_NAME;
+    return new RenameOperation(oldProjectKey, input, changeIds);
+  }
+
   private void assertReverted() throws Exception {
     evictCaches();
 
@@ -150,13 +186,13 @@ public class RevertRenameProjectTest extends LightweightPluginDaemonTest {
     assertThat(newProjectState.getProject().getState())
         .isEqualTo(com.google.gerrit.extensions.client.ProjectState.ACTIVE);
 
-    if (renameProject.getStepsPerformed().contains(Step.DATABASE)) {
+    if (op.getStepsPerformed().contains(Step.DATABASE)) {
       ChangeApi changeApi = gApi.changes().id(NEW_PROJECT_NAME, result.getChange().getId().get());
       ChangeInfo changeInfo = changeApi.info();
       assertThat(changeInfo.changeId).isEqualTo(result.getChangeId());
     }
 
-    if (renameProject.getStepsPerformed().contains(Step.INDEX)) {
+    if (op.getStepsPerformed().contains(Step.INDEX)) {
       assertThat(queryProvider.get().byProject(oldProjectKey)).isEmpty();
     }
   }
@@ -0,0 +1,149 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StepSchedulerTest {
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testIndependentStepsRunConcurrently() throws Exception {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    List<String> completed = new CopyOnWriteArrayList<>();
+    try (StepScheduler steps = new StepScheduler(executor)) {
+      steps
+          .add("first", () -> awaitOther(bothStarted, completed, "first"))
+          .add("second", () -> awaitOther(bothStarted, completed, "second"))
+          .add("last", () -> completed.add("last"), "first", "second")
+          .run();
+    }
+    assertThat(completed).containsExactly("first", "second", "last");
+    assertThat(completed.get(2)).isEqualTo("last");
+  }
+
+  @Test
+  public void testFailureSkipsDependentStepsAndWaitsForRunningOnes() throws Exception {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch failed = new CountDownLatch(1);
+    List<String> completed = new CopyOnWriteArrayList<>();
+    try (StepScheduler steps = new StepScheduler(executor)) {
+      steps
+          .add(
+              "running",
+              () -> {
+                running.countDown();
+                failed.await();
+                completed.add("running");
+              })
+          .add(
+              "failing",
+              () -> {
+                running.await();
+                failed.countDown();
+                throw new IOException("broken");
+              })
+          .add("dependent", () -> completed.add("dependent"), "failing");
+      IOException e = assertThrows(IOException.class, steps::run);
+      assertThat(e).hasMessageThat().isEqualTo("broken");
+    }
+    assertThat(completed).containsExactly("running");
+  }
+
+  @Test
+  public void testStepExceedingItsTimeoutIsInterrupted() throws Exception {
+    List<String> completed = new CopyOnWriteArrayList<>();
+    try (StepScheduler steps = new StepScheduler(executor, () -> false, step -> 1)) {
+      steps
+          .add("slow", () -> Thread.sleep(60_000))
+          .add("dependent", () -> completed.add("dependent"), "slow");
+      ResourceConflictException e = assertThrows(ResourceConflictException.class, steps::run);
+      assertThat(e).hasMessageThat().contains("slow");
+    }
+    assertThat(completed).isEmpty();
+  }
+
+  @Test
+  public void testCancellationInterruptsRunningStep() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    try (StepScheduler steps = new StepScheduler(executor, cancelled::get, step -> 0)) {
+      steps.add(
+          "waiting",
+          () -> {
+            started.countDown();
+            Thread.sleep(60_000);
+          });
+      new Thread(
+              () -> {
+                try {
+                  started.await();
+                  cancelled.set(true);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              })
+          .start();
+      ResourceConflictException e = assertThrows(ResourceConflictException.class, steps::run);
+      assertThat(e).hasMessageThat().isEqualTo("The rename was cancelled");
+    }
+  }
+
+  @Test
+  public void testClosedSchedulerSkipsStepsNotStarted() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> completed = new CopyOnWriteArrayList<>();
+    try (StepScheduler steps = new StepScheduler(executor)) {
+      steps
+          .add("blocking", release::await)
+          .add("dependent", () -> completed.add("dependent"), "blocking");
+    }
+    release.countDown();
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    assertThat(completed).isEmpty();
+  }
+
+  private static void awaitOther(CountDownLatch bothStarted, List<String> completed, String name)
+      throws InterruptedException {
+    bothStarted.countDown();
+    bothStarted.await();
+    completed.add(name);
+  }
+}
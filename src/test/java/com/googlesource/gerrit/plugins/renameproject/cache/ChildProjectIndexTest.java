@@ -0,0 +1,135 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.events.ProjectDeletedListener;
+import com.google.gerrit.server.config.AllProjectsName;
+import com.google.gerrit.server.config.AllProjectsNameProvider;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectConfig;
+import com.google.gerrit.server.project.ProjectState;
+import com.googlesource.gerrit.plugins.renameproject.Configuration;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChildProjectIndexTest {
+  private static final Project.NameKey PARENT = Project.nameKey("parent");
+  private static final Project.NameKey NEW_PARENT = Project.nameKey("newParent");
+  private static final Project.NameKey CHILD = Project.nameKey("child");
+  private static final Project.NameKey OTHER_CHILD = Project.nameKey("otherChild");
+
+  @Mock private ProjectCache projectCache;
+  @Mock private ProjectConfig.Factory projectConfigFactory;
+  @Mock private GitRepositoryManager repoManager;
+  @Mock private WorkQueue workQueue;
+  @Mock private Configuration cfg;
+
+  private AllProjectsName allProjects;
+  private ChildProjectIndex index;
+
+  @Before
+  public void setUp() {
+    allProjects = new AllProjectsName(AllProjectsNameProvider.DEFAULT);
+    when(projectCache.all()).thenReturn(ImmutableSortedSet.of(PARENT, CHILD, OTHER_CHILD));
+    mockProject(PARENT, null);
+    mockProject(CHILD, PARENT);
+    mockProject(OTHER_CHILD, PARENT);
+    index = newIndex();
+  }
+
+  @Test
+  public void testChildrenAreFoundBeforeAndAfterLoading() {
+    assertThat(index.getChildren(PARENT)).containsExactly(CHILD, OTHER_CHILD).inOrder();
+    index.load();
+    assertThat(index.getChildren(PARENT)).containsExactly(CHILD, OTHER_CHILD).inOrder();
+    assertThat(index.getChildren(allProjects)).containsExactly(PARENT);
+    assertThat(index.getChildren(CHILD)).isEmpty();
+  }
+
+  @Test
+  public void testRenameKeepsChildrenUntilReparented() {
+    index.load();
+    index.rename(PARENT, NEW_PARENT);
+    assertThat(index.getChildren(allProjects)).containsExactly(NEW_PARENT);
+    assertThat(index.getChildren(PARENT)).containsExactly(CHILD, OTHER_CHILD);
+
+    index.setParent(CHILD, NEW_PARENT);
+    assertThat(index.getChildren(PARENT)).containsExactly(OTHER_CHILD);
+    index.moveChildren(PARENT, NEW_PARENT);
+    assertThat(index.getChildren(PARENT)).isEmpty();
+    assertThat(index.getChildren(NEW_PARENT)).containsExactly(CHILD, OTHER_CHILD).inOrder();
+  }
+
+  @Test
+  public void testProjectDeletedWhileLoadingIsNotIndexed() {
+    ProjectState child = projectCache.get(CHILD).get();
+    ProjectDeletedListener.Event event = deleted(CHILD);
+    when(projectCache.get(CHILD))
+        .thenAnswer(
+            invocation -> {
+              index.onProjectDeleted(event);
+              return Optional.of(child);
+            });
+    index.load();
+    assertThat(index.getChildren(PARENT)).containsExactly(OTHER_CHILD);
+  }
+
+  @Test
+  public void testChildrenAreScannedWhenSharedWithPeers() {
+    when(cfg.getCacheBroadcastDirectory()).thenReturn(Optional.of(Path.of("invalidations")));
+    index = newIndex();
+    index.load();
+    // another primary reparented the children, without any event on this node
+    mockProject(CHILD, NEW_PARENT);
+    mockProject(OTHER_CHILD, NEW_PARENT);
+    assertThat(index.getChildren(PARENT)).isEmpty();
+    assertThat(index.getChildren(NEW_PARENT)).containsExactly(CHILD, OTHER_CHILD).inOrder();
+  }
+
+  private ChildProjectIndex newIndex() {
+    return new ChildProjectIndex(
+        projectCache, projectConfigFactory, repoManager, allProjects, workQueue, cfg);
+  }
+
+  private static ProjectDeletedListener.Event deleted(Project.NameKey key) {
+    ProjectDeletedListener.Event event = mock(ProjectDeletedListener.Event.class);
+    when(event.getProjectName()).thenReturn(key.get());
+    return event;
+  }
+
+  private void mockProject(Project.NameKey key, Project.NameKey parent) {
+    Project.Builder project = Project.builder(key);
+    if (parent != null) {
+      project.setParent(parent);
+    }
+    ProjectState state = mock(ProjectState.class);
+    when(state.getProject()).thenReturn(project.build());
+    when(projectCache.get(key)).thenReturn(Optional.of(state));
+  }
+}
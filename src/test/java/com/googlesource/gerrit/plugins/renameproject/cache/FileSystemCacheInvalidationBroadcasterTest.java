@@ -0,0 +1,86 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.WorkQueue;
+import com.googlesource.gerrit.plugins.renameproject.Configuration;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FileSystemCacheInvalidationBroadcasterTest {
+  private static final Project.NameKey OLD_PROJECT = Project.nameKey("oldProject");
+  private static final Project.NameKey NEW_PROJECT = Project.nameKey("newProject");
+  private static final Set<Change.Id> CHANGE_IDS = ImmutableSet.of(Change.id(1), Change.id(2));
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Mock private Configuration cfg;
+  @Mock private CacheRenameHandler senderCacheHandler;
+  @Mock private CacheRenameHandler peerCacheHandler;
+  @Mock private WorkQueue workQueue;
+
+  private FileSystemCacheInvalidationBroadcaster sender;
+  private FileSystemCacheInvalidationBroadcaster peer;
+
+  @Before
+  public void setUp() {
+    when(cfg.getCacheBroadcastDirectory()).thenReturn(Optional.of(tempFolder.getRoot().toPath()));
+    when(cfg.getCacheBroadcastPollInterval()).thenReturn(5);
+    when(cfg.getNodeId()).thenReturn("sender", "peer");
+    sender = new FileSystemCacheInvalidationBroadcaster(cfg, senderCacheHandler, workQueue);
+    peer = new FileSystemCacheInvalidationBroadcaster(cfg, peerCacheHandler, workQueue);
+  }
+
+  @Test
+  public void testPeerAppliesInvalidationOnce() throws Exception {
+    sender.broadcast(new CacheInvalidation("sender", OLD_PROJECT, NEW_PROJECT, CHANGE_IDS));
+
+    peer.poll();
+    peer.poll();
+
+    ArgumentCaptor<CacheInvalidation> applied = ArgumentCaptor.forClass(CacheInvalidation.class);
+    verify(peerCacheHandler).apply(applied.capture());
+    assertThat(applied.getValue().getOldProjectKey()).isEqualTo(OLD_PROJECT);
+    assertThat(applied.getValue().getNewProjectKey()).isEqualTo(NEW_PROJECT);
+    assertThat(applied.getValue().getChangeIds()).isEqualTo(CHANGE_IDS);
+  }
+
+  @Test
+  public void testSenderIgnoresItsOwnInvalidation() throws Exception {
+    sender.broadcast(new CacheInvalidation("sender", OLD_PROJECT, NEW_PROJECT, CHANGE_IDS));
+
+    sender.poll();
+
+    verify(senderCacheHandler, never()).apply(any());
+  }
+}
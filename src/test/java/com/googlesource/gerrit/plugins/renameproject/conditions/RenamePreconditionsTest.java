@@ -14,29 +14,36 @@
 
 package com.googlesource.gerrit.plugins.renameproject.conditions;
 
-import static org.mockito.Mockito.mock;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
 import com.google.gerrit.entities.Project;
-import com.google.gerrit.extensions.common.ProjectInfo;
-import com.google.gerrit.extensions.restapi.Response;
 import com.google.gerrit.server.CurrentUser;
 import com.google.gerrit.server.config.AllProjectsName;
 import com.google.gerrit.server.config.AllProjectsNameProvider;
 import com.google.gerrit.server.config.AllUsersName;
 import com.google.gerrit.server.config.AllUsersNameProvider;
 import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.git.WorkQueue;
 import com.google.gerrit.server.project.ProjectResource;
 import com.google.gerrit.server.project.ProjectState;
-import com.google.gerrit.server.restapi.project.ListChildProjects;
 import com.google.gerrit.server.submit.MergeOpRepoManager;
 import com.google.gerrit.server.submit.SubscriptionGraph;
 import com.google.inject.Provider;
 import com.googlesource.gerrit.plugins.renameproject.CannotRenameProjectException;
-import java.util.ArrayList;
-import java.util.List;
+import com.googlesource.gerrit.plugins.renameproject.cache.ChildProjectIndex;
+import com.googlesource.gerrit.plugins.renameproject.cache.SubscriptionIndex;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import org.eclipse.jgit.lib.ObjectDatabase;
 import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -46,7 +53,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class RenamePreconditionsTest {
 
-  @Mock private Provider<ListChildProjects> listChildProjectsProvider;
+  @Mock private ChildProjectIndex childProjectIndex;
+  @Mock private SubscriptionIndex subscriptionIndex;
   @Mock private GitRepositoryManager repoManager;
   @Mock private Provider<MergeOpRepoManager> ormProvider;
   @Mock private RenamePreconditions preconditions;
@@ -54,13 +62,12 @@ public class RenamePreconditionsTest {
   @Mock private ProjectState control;
   @Mock private CurrentUser user;
   @Mock private Repository repo;
-  @Mock private ListChildProjects listChildProjects;
   @Mock private SubscriptionGraph.Factory subscriptionGraphFactory;
+  @Mock private WorkQueue workQueue;
 
   private AllProjectsName allProjects;
   private AllUsersName allUsersName;
   private ProjectResource oldRsrc;
-  private Response<List<ProjectInfo>> children = Response.ok(new ArrayList<>());
   private Project.NameKey newProjectKey = Project.nameKey("newProject");
 
   @Before
@@ -68,16 +75,28 @@ public class RenamePreconditionsTest {
     allProjects = new AllProjectsName(AllProjectsNameProvider.DEFAULT);
     allUsersName = new AllUsersName(AllUsersNameProvider.DEFAULT);
     oldRsrc = new ProjectResource(control, user);
+    when(control.getNameKey()).thenReturn(Project.nameKey("oldProject"));
+    when(childProjectIndex.getChildren(any())).thenReturn(ImmutableList.of());
     when(repoManager.openRepository(newProjectKey)).thenReturn(repo);
     when(repo.getObjectDatabase()).thenReturn(objDb);
+    when(workQueue.createQueue(anyInt(), anyString()))
+        .thenReturn(new ScheduledThreadPoolExecutor(3));
     preconditions =
         new RenamePreconditions(
             allProjects,
             allUsersName,
-            listChildProjectsProvider,
+            childProjectIndex,
+            subscriptionIndex,
             repoManager,
             subscriptionGraphFactory,
-            ormProvider);
+            ormProvider,
+            workQueue);
+    preconditions.start();
+  }
+
+  @After
+  public void tearDown() {
+    preconditions.stop();
   }
 
   @Test(expected = CannotRenameProjectException.class)
@@ -111,11 +130,34 @@ public class RenamePreconditionsTest {
     when(oldRsrc.getNameKey()).thenReturn(oldProject.getNameKey());
     when(objDb.exists()).thenReturn(false);
 
-    when(listChildProjectsProvider.get()).thenReturn(listChildProjects);
-    ProjectInfo projInfo = mock(ProjectInfo.class);
-    children.value().add(projInfo);
-    when(listChildProjects.apply(oldRsrc)).thenReturn(children);
+    when(childProjectIndex.getChildren(oldProject.getNameKey()))
+        .thenReturn(ImmutableList.of(Project.nameKey("childProject")));
+
+    preconditions.assertCanRename(oldRsrc, newProjectKey);
+  }
+
+  @Test
+  public void testAssertCanRenameSkipsSubscriptionsNotAllowed() throws Exception {
+    when(objDb.exists()).thenReturn(false);
+    when(subscriptionIndex.mayHaveSuperprojects(control)).thenReturn(false);
 
     preconditions.assertCanRename(oldRsrc, newProjectKey);
+    verify(subscriptionGraphFactory, never()).compute(any(), any());
+  }
+
+  @Test
+  public void testAssertCanRenameReportsAllFailedConditions() throws Exception {
+    Project.NameKey oldProjectKey = Project.nameKey("oldProject");
+    when(objDb.exists()).thenReturn(true);
+    when(childProjectIndex.getChildren(oldProjectKey))
+        .thenReturn(ImmutableList.of(Project.nameKey("childProject")));
+
+    CannotRenameProjectException e =
+        assertThrows(
+            CannotRenameProjectException.class,
+            () -> preconditions.assertCanRename(oldRsrc, newProjectKey));
+    assertThat(e).hasMessageThat().contains("A project with this name already exists");
+    assertThat(e).hasMessageThat().contains("it has children: childProject");
+    assertThat(e.getSuppressed()).hasLength(2);
   }
 }
@@ -0,0 +1,39 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.renameproject.monitor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class RecordingProgressMonitorTest {
+
+  @Test
+  public void testProgressOfCurrentTaskIsRecorded() {
+    RecordingProgressMonitor monitor = new RecordingProgressMonitor();
+    monitor.beginTask("Indexing changes", 10);
+    assertThat(monitor.getRemainingSeconds()).isEqualTo(-1);
+
+    monitor.update(4);
+    assertThat(monitor.getTask()).isEqualTo("Indexing changes");
+    assertThat(monitor.getCompletedWork()).isEqualTo(4);
+    assertThat(monitor.getTotalWork()).isEqualTo(10);
+    assertThat(monitor.getRemainingSeconds()).isAtLeast(0);
+
+    monitor.beginTask("Replicating the rename");
+    assertThat(monitor.getCompletedWork()).isEqualTo(0);
+    assertThat(monitor.getRemainingSeconds()).isEqualTo(-1);
+  }
+}